@@ -0,0 +1,50 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of {@link Hotel#createBookings(List)}: either every request was booked,
+ * or none was and the items say which requests were at fault.
+ */
+public class BatchResult {
+
+    public enum Status {
+        BOOKED,      // booked as part of a committed batch
+        INVALID,     // unknown room or a stay Hotel.checkStay refuses
+        UNAVAILABLE, // room already booked or held for some of these nights
+        CONFLICT,    // overlaps another request for the same room in this batch
+        ABORTED      // fine on its own, but not booked because another item failed
+    }
+
+    public static class Item {
+        private final BookingRequest request;
+        private final Status status;
+        private final Booking booking;
+
+        Item(BookingRequest request, Status status, Booking booking) {
+            this.request = request;
+            this.status = status;
+            this.booking = booking;
+        }
+
+        public BookingRequest getRequest() { return request; }
+        public Status getStatus() { return status; }
+        public Booking getBooking() { return booking; } // null unless BOOKED
+    }
+
+    private final boolean committed;
+    private final List<Item> items;
+
+    BatchResult(boolean committed, List<Item> items) {
+        this.committed = committed;
+        this.items = Collections.unmodifiableList(items);
+    }
+
+    public boolean isCommitted() { return committed; }
+
+    /**
+     * One item per request, in request order.
+     */
+    public List<Item> getItems() { return items; }
+}
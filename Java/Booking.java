@@ -1,41 +1,106 @@
 package model;
 
-import java.io.Serializable;
+import java.io.*;
 import java.time.LocalDate;
 import java.util.UUID;
 
+/**
+ * A confirmed stay. Held compactly: the id as two longs and the dates as
+ * epoch-day ints. Strings and {@link LocalDate}s are only built when a caller
+ * asks for them; internal code uses the primitive accessors.
+ */
 public class Booking implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private final String bookingId;
-    private final String roomId;
-    private final String guestName;
-    private final LocalDate checkIn;
-    private final LocalDate checkOut;
-    private final double amount;
-    private boolean paid;
+    // Serialized form is unchanged from the original String/LocalDate fields so
+    // bookings.dat files written by older versions can still be migrated.
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("bookingId", String.class),
+            new ObjectStreamField("roomId", String.class),
+            new ObjectStreamField("guestName", String.class),
+            new ObjectStreamField("checkIn", LocalDate.class),
+            new ObjectStreamField("checkOut", LocalDate.class),
+            new ObjectStreamField("amount", double.class),
+            new ObjectStreamField("paid", boolean.class),
+    };
+
+    private long idHi;
+    private long idLo;
+    private String roomId;
+    private String guestName;
+    private int checkInDay;
+    private int checkOutDay;
+    private double amount;
+    private volatile boolean paid;
 
     public Booking(String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, double amount, boolean paid) {
-        this.bookingId = UUID.randomUUID().toString();
+        this(UUID.randomUUID(), roomId, guestName, checkIn, checkOut, amount, paid);
+    }
+
+    // used when restoring a booking whose id is already known (journal replay)
+    Booking(String bookingId, String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, double amount, boolean paid) {
+        this(UUID.fromString(bookingId), roomId, guestName, checkIn, checkOut, amount, paid);
+    }
+
+    private Booking(UUID id, String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, double amount, boolean paid) {
+        this(id.getMostSignificantBits(), id.getLeastSignificantBits(), roomId, guestName,
+                (int) checkIn.toEpochDay(), (int) checkOut.toEpochDay(), amount, paid);
+    }
+
+    Booking(long idHi, long idLo, String roomId, String guestName, int checkInDay, int checkOutDay, double amount, boolean paid) {
+        this.idHi = idHi;
+        this.idLo = idLo;
         this.roomId = roomId;
         this.guestName = guestName;
-        this.checkIn = checkIn;
-        this.checkOut = checkOut;
+        this.checkInDay = checkInDay;
+        this.checkOutDay = checkOutDay;
         this.amount = amount;
         this.paid = paid;
     }
 
-    public String getBookingId() { return bookingId; }
+    public String getBookingId() { return new UUID(idHi, idLo).toString(); }
     public String getRoomId() { return roomId; }
     public String getGuestName() { return guestName; }
-    public LocalDate getCheckIn() { return checkIn; }
-    public LocalDate getCheckOut() { return checkOut; }
+    public LocalDate getCheckIn() { return LocalDate.ofEpochDay(checkInDay); }
+    public LocalDate getCheckOut() { return LocalDate.ofEpochDay(checkOutDay); }
     public double getAmount() { return amount; }
     public boolean isPaid() { return paid; }
     public void setPaid(boolean paid) { this.paid = paid; }
 
+    // --- Primitive accessors for internal use ---
+
+    long idHi() { return idHi; }
+    long idLo() { return idLo; }
+    int checkInDay() { return checkInDay; }
+    int checkOutDay() { return checkOutDay; }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField f = out.putFields();
+        f.put("bookingId", getBookingId());
+        f.put("roomId", roomId);
+        f.put("guestName", guestName);
+        f.put("checkIn", getCheckIn());
+        f.put("checkOut", getCheckOut());
+        f.put("amount", amount);
+        f.put("paid", paid);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField f = in.readFields();
+        UUID id = UUID.fromString((String) f.get("bookingId", null));
+        idHi = id.getMostSignificantBits();
+        idLo = id.getLeastSignificantBits();
+        roomId = (String) f.get("roomId", null);
+        guestName = (String) f.get("guestName", null);
+        checkInDay = (int) ((LocalDate) f.get("checkIn", null)).toEpochDay();
+        checkOutDay = (int) ((LocalDate) f.get("checkOut", null)).toEpochDay();
+        amount = f.get("amount", 0.0);
+        paid = f.get("paid", false);
+    }
+
     @Override
     public String toString() {
-        return String.format("%s | Room:%s | %s -> %s | %s | ₹%.2f", bookingId, roomId, checkIn, checkOut, guestName, amount);
+        return String.format("%s | Room:%s | %s -> %s | %s | ₹%.2f", getBookingId(), roomId, getCheckIn(), getCheckOut(), guestName, amount);
     }
 }
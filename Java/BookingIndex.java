@@ -0,0 +1,83 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary indexes over bookings: guest name (lower-cased, for case-insensitive
+ * prefix search), check-in date and check-out date.
+ *
+ * Each key maps to a concurrent sorted set of its bookings (by check-in, then id),
+ * so queries read without locking and cost time proportional to their results, and
+ * an update costs O(log n) per index however many bookings share the key. Updates
+ * are serialized on the index itself so a key's set is never dropped while
+ * another update is adding to it.
+ */
+class BookingIndex {
+
+    private final ConcurrentSkipListMap<String, NavigableSet<Booking>> byGuest = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<LocalDate, NavigableSet<Booking>> byCheckIn = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<LocalDate, NavigableSet<Booking>> byCheckOut = new ConcurrentSkipListMap<>();
+
+    synchronized void add(Booking b) {
+        put(byGuest, guestKey(b.getGuestName()), b);
+        put(byCheckIn, b.getCheckIn(), b);
+        put(byCheckOut, b.getCheckOut(), b);
+    }
+
+    synchronized void remove(Booking b) {
+        take(byGuest, guestKey(b.getGuestName()), b);
+        take(byCheckIn, b.getCheckIn(), b);
+        take(byCheckOut, b.getCheckOut(), b);
+    }
+
+    synchronized void clear() {
+        byGuest.clear();
+        byCheckIn.clear();
+        byCheckOut.clear();
+    }
+
+    // --- Queries ---
+
+    List<Booking> byGuestPrefix(String prefix) {
+        String p = guestKey(prefix);
+        return flatten(byGuest.subMap(p, true, p + Character.MAX_VALUE, false).values());
+    }
+
+    List<Booking> arrivingBetween(LocalDate from, LocalDate to) {
+        return flatten(byCheckIn.subMap(from, true, to, true).values());
+    }
+
+    List<Booking> departingBetween(LocalDate from, LocalDate to) {
+        return flatten(byCheckOut.subMap(from, true, to, true).values());
+    }
+
+    // --- Helpers ---
+
+    private static String guestKey(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final Comparator<Booking> ORDER = Comparator.comparingInt(Booking::checkInDay)
+            .thenComparingLong(Booking::idHi)
+            .thenComparingLong(Booking::idLo);
+
+    private static <K> void put(Map<K, NavigableSet<Booking>> index, K key, Booking b) {
+        index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(ORDER)).add(b);
+    }
+
+    private static <K> void take(Map<K, NavigableSet<Booking>> index, K key, Booking b) {
+        NavigableSet<Booking> set = index.get(key);
+        if (set == null) return;
+        set.remove(b);
+        if (set.isEmpty()) index.remove(key);
+    }
+
+    private static List<Booking> flatten(Collection<NavigableSet<Booking>> sets) {
+        List<Booking> result = new ArrayList<>();
+        for (Set<Booking> set : sets) result.addAll(set);
+        return result;
+    }
+}
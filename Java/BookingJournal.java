@@ -0,0 +1,356 @@
+package model;
+
+import util.Metrics;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of booking mutations.
+ *
+ * Each record is framed as [length][crc32][payload] so a torn write at the tail
+ * (crash mid-append) is detected on replay and discarded. A write that fails is
+ * cut back to the last whole record, so later records never follow a torn one.
+ * Appends only buffer;
+ * {@link #commit(long)} makes a record durable, and one fsync covers every
+ * record appended before it, so concurrent writers share the cost (group commit).
+ */
+class BookingJournal implements Closeable {
+
+    // records with string ids, written by earlier versions; still replayed
+    private static final byte CREATED_V1 = 1;
+    private static final byte CANCELLED_V1 = 2;
+    private static final byte PAYMENT_V1 = 3;
+    // records with the id as two longs and dates as epoch-day ints
+    private static final byte CREATED = 4;
+    private static final byte CANCELLED = 5;
+    private static final byte PAYMENT = 6;
+
+    private static final int BUFFER_BYTES = 8192; // written out once this much is appended
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_BYTES); // whole records not yet written
+    private long written; // file length up to the last whole record written (guarded by this)
+
+    private final Object syncLock = new Object();
+    private long appended; // sequence of the last appended record
+    private long durable;  // sequence of the last fsync'ed record (guarded by syncLock)
+    private int records;   // records since the last reset
+
+    BookingJournal(File file) throws IOException {
+        this.file = file;
+        long valid = file.exists() ? validLength(file) : 0;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(valid); // drop a torn tail so new records follow the last good one
+        channel.position(valid);
+        this.written = valid;
+    }
+
+    // --- Appending ---
+
+    synchronized long logCreated(Booking b) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(96);
+        frameCreated(buf, b);
+        return append(buf, 1);
+    }
+
+    /**
+     * Append one record per booking in a single write; returns the sequence of the last.
+     */
+    synchronized long logCreated(List<Booking> batch) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(96 * batch.size());
+        for (Booking b : batch) frameCreated(buf, b);
+        return append(buf, batch.size());
+    }
+
+    synchronized long logCancelled(Booking b) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(32);
+        frame(buf, CANCELLED, d -> {
+            d.writeLong(b.idHi());
+            d.writeLong(b.idLo());
+        });
+        return append(buf, 1);
+    }
+
+    synchronized long logPayment(Booking b, boolean paid) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(32);
+        frame(buf, PAYMENT, d -> {
+            d.writeLong(b.idHi());
+            d.writeLong(b.idLo());
+            d.writeBoolean(paid);
+        });
+        return append(buf, 1);
+    }
+
+    private interface Body { void write(DataOutputStream d) throws IOException; }
+
+    private static void frameCreated(ByteArrayOutputStream buf, Booking b) {
+        frame(buf, CREATED, d -> {
+            d.writeLong(b.idHi());
+            d.writeLong(b.idLo());
+            d.writeUTF(b.getRoomId());
+            d.writeUTF(b.getGuestName());
+            d.writeInt(b.checkInDay());
+            d.writeInt(b.checkOutDay());
+            d.writeDouble(b.getAmount());
+            d.writeBoolean(b.isPaid());
+        });
+    }
+
+    /**
+     * Add [length][crc32][type + body] to the buffer.
+     */
+    private static void frame(ByteArrayOutputStream buf, byte type, Body body) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+            DataOutputStream d = new DataOutputStream(payload);
+            d.writeByte(type);
+            body.write(d);
+            CRC32 crc = new CRC32();
+            crc.update(payload.toByteArray());
+            DataOutputStream f = new DataOutputStream(buf);
+            f.writeInt(payload.size());
+            f.writeInt((int) crc.getValue());
+            payload.writeTo(f);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode journal record", e); // in-memory streams don't fail
+        }
+    }
+
+    /**
+     * Buffer framed records. Callers append before changing anything in memory, so a
+     * failed append leaves no trace there: the buffer is written out before the
+     * records are added to it, never with them.
+     */
+    private long append(ByteArrayOutputStream framed, int count) {
+        try {
+            if (buffer.size() > 0 && buffer.size() + framed.size() > BUFFER_BYTES) flush();
+            framed.writeTo(buffer);
+            Metrics.JOURNAL_BYTES.add(framed.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to booking journal", e);
+        }
+        records += count;
+        appended += count;
+        return appended;
+    }
+
+    /**
+     * Block until the record with the given sequence is on disk. Whoever gets the
+     * sync lock first flushes and fsyncs everything appended so far, so callers
+     * queued behind it usually return without syncing again.
+     */
+    void commit(long seq) {
+        synchronized (syncLock) {
+            if (durable >= seq) return;
+            long target;
+            try {
+                synchronized (this) {
+                    flush();
+                    target = appended;
+                }
+                long t = Metrics.JOURNAL_FSYNC.start();
+                channel.force(false);
+                Metrics.JOURNAL_FSYNC.stop(t);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync booking journal", e);
+            }
+            durable = target;
+        }
+    }
+
+    /**
+     * Write the buffered records. If that fails the file is cut back to the last whole
+     * record and the records stay buffered, to be written again by the next flush.
+     */
+    private void flush() throws IOException {
+        if (buffer.size() == 0) return;
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        try {
+            while (bytes.hasRemaining()) channel.write(bytes);
+        } catch (IOException e) {
+            try {
+                channel.position(written);
+                channel.truncate(written);
+            } catch (IOException t) {
+                e.addSuppressed(t);
+            }
+            throw e;
+        }
+        written = channel.position();
+        buffer.reset();
+    }
+
+    synchronized int size() {
+        return records;
+    }
+
+    /**
+     * Discard all records; called once their effect is captured in a durable snapshot.
+     */
+    void reset() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                buffer.reset();
+                channel.truncate(0);
+                channel.position(0);
+                written = 0;
+                channel.force(true);
+                records = 0;
+                durable = appended;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (durable < appended) { // nothing to sync when every record is already committed
+                    flush();
+                    channel.force(false);
+                    durable = appended;
+                }
+            }
+            channel.close();
+        }
+    }
+
+    // --- Replay ---
+
+    /**
+     * Supplies a booking that a cancel or payment record refers to but that is not
+     * in the table, e.g. by loading it from an older snapshot; null if unknown.
+     */
+    interface Resolver {
+        Booking find(long idHi, long idLo) throws IOException;
+    }
+
+    /**
+     * Apply every intact record in the journal file to the given bookings.
+     * Returns the number of records applied.
+     */
+    static int replay(File file, BookingTable bookings, Resolver missing) throws IOException {
+        if (!file.exists()) return 0;
+        int applied = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] payload;
+            while ((payload = next(in)) != null) {
+                apply(new DataInputStream(new ByteArrayInputStream(payload)), bookings, missing);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(DataInputStream d, BookingTable bookings, Resolver missing) throws IOException {
+        byte type = d.readByte();
+        switch (type) {
+            case CREATED: {
+                long hi = d.readLong(), lo = d.readLong();
+                String roomId = d.readUTF();
+                String guest = d.readUTF();
+                int in = d.readInt(), out = d.readInt();
+                double amount = d.readDouble();
+                boolean paid = d.readBoolean();
+                bookings.put(new Booking(hi, lo, roomId, guest, in, out, amount, paid));
+                break;
+            }
+            case CANCELLED: {
+                Booking b = lookup(bookings, d.readLong(), d.readLong(), missing);
+                if (b != null) bookings.remove(b);
+                break;
+            }
+            case PAYMENT: {
+                Booking b = lookup(bookings, d.readLong(), d.readLong(), missing);
+                boolean paid = d.readBoolean();
+                if (b != null) b.setPaid(paid);
+                break;
+            }
+            case CREATED_V1: {
+                String id = d.readUTF();
+                String roomId = d.readUTF();
+                String guest = d.readUTF();
+                LocalDate in = LocalDate.ofEpochDay(d.readInt());
+                LocalDate out = LocalDate.ofEpochDay(d.readInt());
+                double amount = d.readDouble();
+                boolean paid = d.readBoolean();
+                bookings.put(new Booking(id, roomId, guest, in, out, amount, paid));
+                break;
+            }
+            case CANCELLED_V1: {
+                Booking b = lookup(bookings, d.readUTF(), missing);
+                if (b != null) bookings.remove(b);
+                break;
+            }
+            case PAYMENT_V1: {
+                Booking b = lookup(bookings, d.readUTF(), missing);
+                boolean paid = d.readBoolean();
+                if (b != null) b.setPaid(paid);
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private static Booking lookup(BookingTable bookings, long idHi, long idLo, Resolver missing) throws IOException {
+        Booking b = bookings.get(idHi, idLo);
+        return b != null ? b : missing.find(idHi, idLo);
+    }
+
+    private static Booking lookup(BookingTable bookings, String bookingId, Resolver missing) throws IOException {
+        Booking b = bookings.get(bookingId);
+        if (b != null) return b;
+        try {
+            UUID id = UUID.fromString(bookingId);
+            return missing.find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read the next record payload, or null at end of file or at a torn/corrupt record.
+     */
+    private static byte[] next(DataInputStream in) throws IOException {
+        int len;
+        int crc;
+        try {
+            len = in.readInt();
+            crc = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (len <= 0 || len > (1 << 20)) return null;
+        byte[] payload = new byte[len];
+        try {
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 c = new CRC32();
+        c.update(payload);
+        return (int) c.getValue() == crc ? payload : null;
+    }
+
+    private static long validLength(File file) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] payload;
+            while ((payload = next(in)) != null) valid += 8 + payload.length;
+        }
+        return valid;
+    }
+
+    File getFile() {
+        return file;
+    }
+}
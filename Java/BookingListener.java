@@ -0,0 +1,25 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Receives booking changes from a {@link Hotel}. Callbacks run after the change is
+ * persisted and outside any Hotel lock, one at a time and in the order the changes
+ * were made, on the thread that made the change or on one that made a later change.
+ */
+public interface BookingListener {
+
+    void bookingCreated(Booking booking);
+
+    void bookingCancelled(Booking booking);
+
+    /** Payment status of an existing booking changed. */
+    default void bookingUpdated(Booking booking) {}
+
+    /**
+     * Bookings were reloaded, or history was loaded or unloaded; anything derived from
+     * them is stale. {@code bookings} are all the bookings now in memory, as of this
+     * event: later changes arrive as further events.
+     */
+    default void bookingsReloaded(List<Booking> bookings) {}
+}
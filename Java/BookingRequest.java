@@ -0,0 +1,34 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * One stay in a group or bulk booking, see {@link Hotel#createBookings(java.util.List)}.
+ */
+public class BookingRequest {
+
+    private final String roomId;
+    private final String guestName;
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+    private final boolean paid;
+
+    public BookingRequest(String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, boolean paid) {
+        this.roomId = roomId;
+        this.guestName = guestName;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.paid = paid;
+    }
+
+    public String getRoomId() { return roomId; }
+    public String getGuestName() { return guestName; }
+    public LocalDate getCheckIn() { return checkIn; }
+    public LocalDate getCheckOut() { return checkOut; }
+    public boolean isPaid() { return paid; }
+
+    @Override
+    public String toString() {
+        return String.format("Room:%s | %s -> %s | %s", roomId, checkIn, checkOut, guestName);
+    }
+}
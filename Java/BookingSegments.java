@@ -0,0 +1,232 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The bookings snapshot split into one segment per check-out month, e.g.
+ * {@code bookings/2026-03.snap}. Each segment uses the {@link SnapshotCodec}
+ * bookings format.
+ *
+ * A segment is "loaded" once its bookings are in memory; "cold" segments exist
+ * only on disk. A sealed segment ({@code .sealed}) has been archived: its
+ * bookings can be loaded for history but no longer change.
+ *
+ * Each segment's {@link IdFilter}, written at the end of its file, is kept in
+ * memory once read, so looking up an unknown id reads no segment that cannot
+ * hold it.
+ *
+ * State changes happen under the hotel's checkpoint write lock; the flags and
+ * {@link #loadedFromDay()} are also read without it.
+ */
+final class BookingSegments {
+
+    private static final Pattern NAME = Pattern.compile("(\\d{4})-(\\d{2})\\.(snap|sealed)");
+
+    private final File dir;
+    private final Map<Integer, Segment> segments = new ConcurrentSkipListMap<>(); // month index -> segment
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet(); // months changed since the last checkpoint
+    private volatile long loadedFromDay = Long.MIN_VALUE;
+
+    BookingSegments(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Forget all state and list the segment files on disk, all cold.
+     */
+    void scan() {
+        segments.clear();
+        dirty.clear();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                Matcher m = NAME.matcher(f.getName());
+                if (!m.matches()) continue;
+                int month = Integer.parseInt(m.group(1)) * 12 + Integer.parseInt(m.group(2)) - 1;
+                Segment s = segments.computeIfAbsent(month, k -> new Segment());
+                s.onDisk = true;
+                s.sealed |= m.group(3).equals("sealed");
+            }
+        }
+        recompute();
+    }
+
+    /**
+     * True once segments have been written here, even if all of them are empty.
+     */
+    boolean exists() {
+        return dir.isDirectory();
+    }
+
+    void create() {
+        if (!dir.exists()) dir.mkdirs();
+    }
+
+    /**
+     * Months on disk whose bookings are not in memory, oldest first.
+     */
+    List<Integer> coldMonths() {
+        List<Integer> cold = new ArrayList<>();
+        segments.forEach((m, s) -> { if (s.onDisk && !s.loaded) cold.add(m); });
+        return cold;
+    }
+
+    /**
+     * Months whose bookings are in memory and which may be sealed and unloaded.
+     */
+    List<Integer> loadedMonths() {
+        List<Integer> loaded = new ArrayList<>();
+        segments.forEach((m, s) -> { if (s.loaded) loaded.add(m); });
+        return loaded;
+    }
+
+    boolean isCold(int month) {
+        Segment s = segments.get(month);
+        return s != null && s.onDisk && !s.loaded;
+    }
+
+    boolean isSealed(int month) {
+        Segment s = segments.get(month);
+        return s != null && s.sealed;
+    }
+
+    /**
+     * First epoch day from which every booking is in memory: stays starting on or
+     * after it cannot overlap a cold booking. {@link Long#MIN_VALUE} when nothing is cold.
+     */
+    long loadedFromDay() {
+        return loadedFromDay;
+    }
+
+    /**
+     * Read a cold segment and mark it loaded.
+     */
+    List<Booking> load(int month) throws IOException {
+        Segment s = segments.get(month);
+        if (s == null || !s.onDisk || s.loaded) return new ArrayList<>();
+        List<Booking> bookings = SnapshotCodec.readBookings(file(month, s.sealed));
+        s.loaded = true;
+        recompute();
+        return bookings;
+    }
+
+    /**
+     * Month of the cold segment holding the booking, or -1.
+     */
+    int findCold(long idHi, long idLo) {
+        for (int month : coldMonths()) {
+            Segment s = segments.get(month);
+            if (s == null) continue;
+            try {
+                File f = file(month, s.sealed);
+                IdFilter ids = s.ids;
+                if (ids == null) s.ids = ids = SnapshotCodec.readIdFilter(f);
+                if (ids.mightContain(idHi, idLo) && SnapshotCodec.containsBooking(f, idHi, idLo)) return month;
+            } catch (IOException e) {
+                System.err.println("Failed to read booking segment " + monthName(month) + ": " + e.getMessage());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write a loaded month's bookings to its segment.
+     */
+    void write(int month, Collection<Booking> bookings) throws IOException {
+        create();
+        Segment s = segments.computeIfAbsent(month, k -> new Segment());
+        s.ids = SnapshotCodec.writeBookings(file(month, s.sealed), bookings);
+        s.onDisk = true;
+        s.loaded = true;
+    }
+
+    /**
+     * Mark a loaded month's segment sealed, renaming its file.
+     */
+    void seal(int month) throws IOException {
+        Segment s = segments.get(month);
+        if (s == null || s.sealed || !s.onDisk) return;
+        Files.move(file(month, false).toPath(), file(month, true).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        SnapshotCodec.syncDirectory(dir);
+        s.sealed = true;
+    }
+
+    /**
+     * Its bookings were dropped from memory; the segment is cold again.
+     */
+    void unloaded(int month) {
+        Segment s = segments.get(month);
+        if (s != null && s.onDisk) s.loaded = false;
+        recompute();
+    }
+
+    /**
+     * A booking in the month changed in memory; the month counts as loaded from now
+     * on even if it has no segment yet. Only called for months that are not cold.
+     */
+    void markDirty(int month) {
+        segments.computeIfAbsent(month, k -> new Segment()).loaded = true;
+        dirty.add(month);
+    }
+
+    Set<Integer> dirtyMonths() {
+        return dirty;
+    }
+
+    private void recompute() {
+        long from = Long.MIN_VALUE;
+        for (Map.Entry<Integer, Segment> e : segments.entrySet()) {
+            Segment s = e.getValue();
+            if (s.onDisk && !s.loaded) from = firstDayAfter(e.getKey());
+        }
+        loadedFromDay = from;
+    }
+
+    private File file(int month, boolean sealed) {
+        return new File(dir, monthName(month) + (sealed ? ".sealed" : ".snap"));
+    }
+
+    // --- Month arithmetic ---
+
+    static int monthOf(long epochDay) {
+        LocalDate d = LocalDate.ofEpochDay(epochDay);
+        return d.getYear() * 12 + d.getMonthValue() - 1;
+    }
+
+    static int monthOf(YearMonth m) {
+        return m.getYear() * 12 + m.getMonthValue() - 1;
+    }
+
+    static YearMonth yearMonth(int month) {
+        return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1);
+    }
+
+    private static long firstDayAfter(int month) {
+        return yearMonth(month).plusMonths(1).atDay(1).toEpochDay();
+    }
+
+    private static String monthName(int month) {
+        return yearMonth(month).toString();
+    }
+
+    private static final class Segment {
+        volatile boolean onDisk;
+        volatile boolean loaded;
+        volatile boolean sealed;
+        volatile IdFilter ids; // null until read; replaced whenever the file is rewritten
+    }
+}
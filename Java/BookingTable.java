@@ -0,0 +1,148 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bookings by id, keyed directly on the two longs of the id so no id strings are
+ * kept. Open addressing with linear probing; iteration follows insertion order
+ * through a separate append-only array whose holes are squeezed out once they
+ * make up half of it. Not thread-safe; Hotel guards it.
+ */
+final class BookingTable {
+
+    private Booking[] slots = new Booking[16]; // hash table, null = empty
+    private int[] orderPos = new int[16];      // slot -> index in order
+    private Booking[] order = new Booking[16]; // insertion order, null = removed
+    private int orderSize;                      // used length of order
+    private int size;
+    private int tombstones;                     // removed entries in the hash table
+
+    private static final Booking TOMBSTONE = new Booking(0, 0, null, null, 0, 0, 0, false);
+
+    int size() {
+        return size;
+    }
+
+    Booking get(String bookingId) {
+        UUID id;
+        try {
+            id = UUID.fromString(bookingId);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+        return get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    Booking get(long idHi, long idLo) {
+        int slot = find(idHi, idLo);
+        return slot < 0 ? null : slots[slot];
+    }
+
+    /**
+     * Add or replace the booking with the same id.
+     */
+    void put(Booking b) {
+        if ((size + tombstones + 1) * 4L > slots.length * 3L) rehash(size + 1 > slots.length / 2 ? slots.length * 2 : slots.length);
+        int existing = find(b.idHi(), b.idLo());
+        if (existing >= 0) {
+            slots[existing] = b;
+            order[orderPos[existing]] = b;
+            return;
+        }
+        int slot = insertionSlot(b.idHi(), b.idLo());
+        if (slots[slot] == TOMBSTONE) tombstones--;
+        slots[slot] = b;
+        if (orderSize == order.length) compactOrGrowOrder();
+        orderPos[slot] = orderSize;
+        order[orderSize++] = b;
+        size++;
+    }
+
+    /**
+     * Remove the booking if it is the one stored under its id.
+     */
+    boolean remove(Booking b) {
+        int slot = find(b.idHi(), b.idLo());
+        if (slot < 0 || slots[slot] != b) return false;
+        order[orderPos[slot]] = null;
+        slots[slot] = TOMBSTONE;
+        tombstones++;
+        size--;
+        return true;
+    }
+
+    void clear() {
+        slots = new Booking[16];
+        orderPos = new int[16];
+        order = new Booking[16];
+        orderSize = size = tombstones = 0;
+    }
+
+    /**
+     * Live bookings in insertion order.
+     */
+    List<Booking> values() {
+        List<Booking> result = new ArrayList<>(size);
+        for (int i = 0; i < orderSize; i++) {
+            if (order[i] != null) result.add(order[i]);
+        }
+        return result;
+    }
+
+    // --- Hashing ---
+
+    private static int hash(long hi, long lo) {
+        long h = hi ^ lo; // random UUIDs are already well mixed
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long hi, long lo) {
+        int mask = slots.length - 1;
+        for (int i = hash(hi, lo) & mask; ; i = (i + 1) & mask) {
+            Booking b = slots[i];
+            if (b == null) return -1;
+            if (b != TOMBSTONE && b.idHi() == hi && b.idLo() == lo) return i;
+        }
+    }
+
+    private int insertionSlot(long hi, long lo) {
+        int mask = slots.length - 1;
+        for (int i = hash(hi, lo) & mask; ; i = (i + 1) & mask) {
+            if (slots[i] == null || slots[i] == TOMBSTONE) return i;
+        }
+    }
+
+    private void rehash(int capacity) {
+        Booking[] old = slots;
+        int[] oldPos = orderPos;
+        slots = new Booking[capacity];
+        orderPos = new int[capacity];
+        tombstones = 0;
+        for (int i = 0; i < old.length; i++) {
+            Booking b = old[i];
+            if (b == null || b == TOMBSTONE) continue;
+            int slot = insertionSlot(b.idHi(), b.idLo());
+            slots[slot] = b;
+            orderPos[slot] = oldPos[i];
+        }
+    }
+
+    /**
+     * The order array is full: squeeze out removed entries, growing it if it is still mostly live.
+     */
+    private void compactOrGrowOrder() {
+        Booking[] next = size * 2 > order.length ? new Booking[order.length * 2] : new Booking[order.length];
+        int n = 0;
+        for (int i = 0; i < orderSize; i++) {
+            Booking b = order[i];
+            if (b == null) continue;
+            next[n] = b;
+            orderPos[find(b.idHi(), b.idLo())] = n;
+            n++;
+        }
+        order = next;
+        orderSize = n;
+    }
+}
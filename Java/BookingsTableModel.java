@@ -0,0 +1,224 @@
+package ui;
+
+import model.*;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bookings table backed by the hotel's booking store. Listens for booking
+ * changes and fires row-level events instead of rebuilding the table, formats
+ * cells only when the table asks for them, and shows one page of rows at a time,
+ * optionally limited to stays overlapping a date range.
+ *
+ * Rows are keyed by booking id, so an event for a booking the table already shows
+ * (or no longer shows) changes nothing. Rows live in an append-only array with holes
+ * where bookings were cancelled, plus a Fenwick tree counting the rows before each
+ * slot: finding, adding or removing a row is O(log n) and holes are squeezed out
+ * once they make up half of the array.
+ */
+public class BookingsTableModel extends AbstractTableModel implements BookingListener {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"BookingID", "RoomID", "Guest", "CheckIn", "CheckOut", "Amount", "Paid"};
+
+    private final Hotel hotel;
+    // bookings passing the filter, in booking order; all accessed on the EDT only
+    private final List<Booking> slots = new ArrayList<>(); // null = removed
+    private final Map<String, Integer> slotOf = new HashMap<>(); // bookingId -> index in slots
+    private int[] tree = new int[1]; // Fenwick tree over slots, 1-based: rows per range
+    private int rows; // live slots
+    private final int pageSize;
+    private int page;
+    private LocalDate from; // filter: stays overlapping [from, to], null = open
+    private LocalDate to;
+
+    public BookingsTableModel(Hotel hotel, int pageSize) {
+        this.hotel = hotel;
+        this.pageSize = pageSize;
+        hotel.addBookingListener(this); // first, so nothing created during the load is missed
+        reload();
+    }
+
+    // --- Paging and filtering ---
+
+    /**
+     * Re-read all bookings from the hotel. Only needed when the filter changes.
+     */
+    public void reload() {
+        reload(hotel.getAllBookings());
+    }
+
+    private void reload(List<Booking> bookings) {
+        slots.clear();
+        slotOf.clear();
+        for (Booking b : bookings) {
+            if (matches(b) && slotOf.putIfAbsent(b.getBookingId(), slots.size()) == null) slots.add(b);
+        }
+        rebuild(slots.size());
+        page = Math.min(page, Math.max(0, getPageCount() - 1));
+        fireTableDataChanged();
+    }
+
+    public void setDateFilter(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        page = 0;
+        reload();
+    }
+
+    public int getPage() { return page; }
+
+    public int getPageCount() { return Math.max(1, (rows + pageSize - 1) / pageSize); }
+
+    public int getMatchingCount() { return rows; }
+
+    public void setPage(int page) {
+        int p = Math.max(0, Math.min(page, getPageCount() - 1));
+        if (p == this.page) return;
+        this.page = p;
+        fireTableDataChanged();
+    }
+
+    public Booking getBookingAt(int row) {
+        return slots.get(slotAt(page * pageSize + row));
+    }
+
+    private boolean matches(Booking b) {
+        if (from != null && b.getCheckOut().isBefore(from)) return false;
+        return to == null || !b.getCheckIn().isAfter(to);
+    }
+
+    // --- TableModel ---
+
+    @Override
+    public int getRowCount() {
+        return Math.max(0, Math.min(pageSize, rows - page * pageSize));
+    }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int c) { return COLUMNS[c]; }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        Booking b = getBookingAt(row);
+        switch (col) {
+            case 0: return b.getBookingId();
+            case 1: return b.getRoomId();
+            case 2: return b.getGuestName();
+            case 3: return b.getCheckIn().toString();
+            case 4: return b.getCheckOut().toString();
+            case 5: return String.format("₹%.2f", b.getAmount());
+            case 6: return b.isPaid();
+            default: return null;
+        }
+    }
+
+    // --- Booking changes (any thread; applied on the EDT) ---
+
+    @Override
+    public void bookingCreated(Booking booking) {
+        SwingUtilities.invokeLater(() -> {
+            if (!matches(booking) || slotOf.containsKey(booking.getBookingId())) return;
+            if (slots.size() == tree.length - 1) rebuild(Math.max(16, 2 * rows));
+            int slot = slots.size();
+            slots.add(booking);
+            slotOf.put(booking.getBookingId(), slot);
+            add(slot, 1);
+            rows++;
+            int i = rows - 1 - page * pageSize;
+            if (i >= 0 && i < pageSize) fireTableRowsInserted(i, i);
+        });
+    }
+
+    @Override
+    public void bookingCancelled(Booking booking) {
+        SwingUtilities.invokeLater(() -> {
+            Integer slot = slotOf.remove(booking.getBookingId());
+            if (slot == null) return;
+            int at = rowsBefore(slot);
+            slots.set(slot, null);
+            add(slot, -1);
+            rows--;
+            if (slots.size() > 32 && rows < slots.size() / 2) rebuild(Math.max(16, 2 * rows));
+            int start = page * pageSize;
+            if (at >= start + pageSize) return; // after this page: nothing visible moves
+            if (page > 0 && start >= rows) { setPage(page - 1); return; }
+            // rows from i down shift up by one; if a later row slides in at the
+            // bottom the page keeps its size, otherwise it loses its last row
+            int i = Math.max(0, at - start);
+            if (start + pageSize <= rows) fireTableRowsUpdated(i, pageSize - 1);
+            else fireTableRowsDeleted(i, i);
+        });
+    }
+
+    @Override
+    public void bookingUpdated(Booking booking) {
+        SwingUtilities.invokeLater(() -> {
+            Integer slot = slotOf.get(booking.getBookingId());
+            if (slot == null) return;
+            int i = rowsBefore(slot) - page * pageSize;
+            if (i >= 0 && i < pageSize) fireTableRowsUpdated(i, i);
+        });
+    }
+
+    @Override
+    public void bookingsReloaded(List<Booking> bookings) {
+        SwingUtilities.invokeLater(() -> reload(bookings));
+    }
+
+    // --- Row positions ---
+
+    /**
+     * Squeeze out removed slots and size the tree for {@code capacity} slots.
+     */
+    private void rebuild(int capacity) {
+        int n = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            Booking b = slots.get(i);
+            if (b == null) continue;
+            slots.set(n, b);
+            slotOf.put(b.getBookingId(), n);
+            n++;
+        }
+        slots.subList(n, slots.size()).clear();
+        rows = n;
+        tree = new int[Math.max(capacity, n) + 1];
+        for (int i = 1; i < tree.length; i++) {
+            if (i <= n) tree[i]++;
+            int parent = i + (i & -i);
+            if (parent < tree.length) tree[parent] += tree[i];
+        }
+    }
+
+    private void add(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) tree[i] += delta;
+    }
+
+    /** Rows in slots before {@code slot}, i.e. the row index of a live slot. */
+    private int rowsBefore(int slot) {
+        int n = 0;
+        for (int i = slot; i > 0; i -= i & -i) n += tree[i];
+        return n;
+    }
+
+    /** Slot holding the row with the given index. */
+    private int slotAt(int row) {
+        int pos = 0, remaining = row + 1;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            if (pos + step < tree.length && tree[pos + step] < remaining) {
+                pos += step;
+                remaining -= tree[pos];
+            }
+        }
+        return pos;
+    }
+}
@@ -1,140 +1,1279 @@
 package model;
 
+import util.Metrics;
+import util.ThreadPools;
+
 import java.io.*;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 /**
- * Hotel manager: holds rooms and bookings, persists to disk using serialization.
+ * Hotel manager: holds rooms and bookings, persists to disk as binary snapshots.
+ * Booking changes are appended to a journal and folded into the bookings
+ * snapshot once the journal grows past {@link #COMPACT_THRESHOLD} records.
+ * If making a change durable fails, the change stays in memory but the hotel
+ * refuses further changes until it is reloaded or a full save succeeds.
+ *
+ * Bookings are snapshotted per check-out month. Only the current and later months
+ * are loaded at startup; older months stay on disk until {@link #loadHistory} or a
+ * lookup by id needs them, and {@link #archive} seals and unloads them again. New
+ * stays may not start before the end of the latest month still on disk only.
+ *
+ * New stays and holds are bounded (see {@link #checkStay}): a single request cannot
+ * reserve a room for centuries, which would also blow up the per-day structures
+ * behind availability, pricing and reports.
  */
 public class Hotel implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private final Map<String, Room> rooms = new LinkedHashMap<>(); // id -> room
-    private final Map<String, Booking> bookings = new LinkedHashMap<>(); // bookingId -> booking
+    // rooms are replaced wholesale on change (copy-on-write) so readers never lock
+    private volatile Map<String, Room> rooms = Collections.emptyMap(); // id -> room
+    private transient volatile Map<String, Room> savedRooms; // rooms as last read from or written to disk
+    private volatile RoomSlot[] roomSlots = new RoomSlot[0]; // rooms in map order, for scans
+    private final BookingTable bookings = new BookingTable(); // bookingId -> booking, guarded by itself
+    private final Map<String, RoomSchedule> schedules = new ConcurrentHashMap<>(); // roomId -> stays index
+    private final BookingIndex index = new BookingIndex(); // guest / check-in / check-out lookups
+
+    private static final String ROOMS_FILE = "rooms.snap";
+    private static final String BOOKINGS_FILE = "bookings.snap"; // single snapshot of earlier versions; split on load
+    private static final String SEGMENTS_DIR = "bookings"; // one snapshot per check-out month
+    // serialized maps written by earlier versions; migrated on first load
+    private static final String LEGACY_ROOMS_FILE = "rooms.dat";
+    private static final String LEGACY_BOOKINGS_FILE = "bookings.dat";
+    private static final String JOURNAL_FILE = "bookings.journal";
+    private static final String PRICING_FILE = "pricing.properties";
+
+    private final File dataDir;
+    private final transient BookingSegments segments;
+    static final int COMPACT_THRESHOLD = 10_000;
+
+    /** Stays must start and end within this many days of today, either way. */
+    public static final int BOOKING_HORIZON_DAYS = Integer.getInteger("hotel.booking.horizonDays", 3650);
+    /** Longest stay that can be booked or held in one go. */
+    public static final int MAX_NIGHTS = Integer.getInteger("hotel.booking.maxNights", 90);
+    /** Holds asked for longer are cut to this. */
+    public static final Duration MAX_HOLD_TTL = Duration.ofSeconds(Long.getLong("hotel.hold.maxTtlSeconds", 3600));
+    /** Longest a payment claim keeps a hold from lapsing or being released. */
+    public static final Duration MAX_PAYMENT_CLAIM = Duration.ofSeconds(Long.getLong("hotel.hold.maxPaymentSeconds", 300));
+
+    private transient volatile BookingJournal journal;
+    private transient volatile RuntimeException writeFailure; // failed commit; changes are refused until cleared
+
+    private final Map<String, RoomHold> holds = new ConcurrentHashMap<>(); // holdId -> hold
+    private final transient Map<String, ScheduledFuture<?>> holdExpiry = new ConcurrentHashMap<>();
+    private transient volatile ScheduledExecutorService sweeper;
 
-    private static final String ROOMS_FILE = "data/rooms.dat";
-    private static final String BOOKINGS_FILE = "data/bookings.dat";
+    private final transient List<BookingListener> listeners = new CopyOnWriteArrayList<>();
+    private long version; // number of the last change to bookings, guarded by bookings
+    // events of committed changes, delivered to listeners strictly in version order
+    private final transient ConcurrentSkipListMap<Long, Consumer<BookingListener>> pendingEvents = new ConcurrentSkipListMap<>();
+    private final transient AtomicBoolean delivering = new AtomicBoolean();
+    private transient volatile long delivered; // version of the last event delivered, written while delivering
+    private transient volatile Thread deliverer; // thread delivering events, null between deliveries
+    private final transient Object deliveredSignal = new Object(); // notified after a delivery when someone awaits one
+    private final transient AtomicInteger awaiting = new AtomicInteger(); // threads in awaitDelivered
+    private final transient PricingEngine pricing;
+    private final transient ReportingEngine reports;
+    private final transient SearchCache searchCache = new SearchCache(Integer.getInteger("hotel.searchCache.size", 1024));
+
+    // Mutations hold the read side (shared) plus the lock of the room they touch;
+    // snapshots and load() take the write side to see a quiescent, consistent state.
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    public Hotel() {
+        this(new File("data"));
+    }
+
+    /**
+     * A hotel whose snapshots and journal live in the given directory.
+     */
+    public Hotel(File dataDir) {
+        this.dataDir = dataDir;
+        this.segments = new BookingSegments(new File(dataDir, SEGMENTS_DIR));
+        this.pricing = new PricingEngine(this);
+        this.reports = new ReportingEngine(this);
+        listeners.add(pricing);
+        listeners.add(reports);
+    }
 
     // --- CRUD and search operations ---
 
     public synchronized void addRoom(Room room) {
-        rooms.put(room.getId(), room);
+        Map<String, Room> copy = new LinkedHashMap<>(rooms);
+        copy.put(room.getId(), room);
+        rooms = Collections.unmodifiableMap(copy);
+        publishRoomSlots();
+        searchCache.clear();
+        pricing.roomsChanged();
+        reports.roomsChanged();
     }
 
-    public synchronized List<Room> getAllRooms() {
+    public List<Room> getAllRooms() {
         return new ArrayList<>(rooms.values());
     }
 
-    public synchronized List<Booking> getAllBookings() {
-        return new ArrayList<>(bookings.values());
+    /**
+     * Bookings in memory: current and future stays, plus any history loaded
+     * with {@link #loadHistory}.
+     */
+    public List<Booking> getAllBookings() {
+        synchronized (bookings) {
+            return bookings.values();
+        }
     }
 
-    public synchronized Room getRoomById(String id) {
+    public Room getRoomById(String id) {
         return rooms.get(id);
     }
 
-    public synchronized Booking getBookingById(String bookingId) {
-        return bookings.get(bookingId);
+    /**
+     * Looks in memory first, then in the history segments still on disk; a hit
+     * there loads that month (see {@link #loadHistory}).
+     */
+    public Booking getBookingById(String bookingId) {
+        Booking b = loadedBooking(bookingId);
+        if (b != null || segments.coldMonths().isEmpty()) return b;
+        UUID id;
+        try {
+            id = UUID.fromString(bookingId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int month = segments.findCold(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (month < 0) return null;
+        YearMonth m = BookingSegments.yearMonth(month);
+        loadHistory(m, m);
+        return loadedBooking(bookingId);
+    }
+
+    private Booking loadedBooking(String bookingId) {
+        synchronized (bookings) {
+            return bookings.get(bookingId);
+        }
+    }
+
+    // --- Pricing ---
+
+    /**
+     * Rate rules and quotes. Bookings are priced with {@link #quote} when created
+     * or, for holds, when the hold is placed.
+     */
+    public PricingEngine getPricing() {
+        return pricing;
+    }
+
+    /**
+     * Current price of the room over [checkIn, checkOut).
+     */
+    public double quote(Room room, LocalDate checkIn, LocalDate checkOut) {
+        return pricing.quote(room, checkIn, checkOut);
+    }
+
+    /**
+     * Occupancy and revenue reports, kept current as bookings change.
+     */
+    public ReportingEngine getReports() {
+        return reports;
+    }
+
+    // --- Lookups ---
+
+    /**
+     * Bookings whose guest name starts with the prefix, ignoring case.
+     */
+    public List<Booking> findBookingsByGuest(String namePrefix) {
+        return index.byGuestPrefix(namePrefix);
+    }
+
+    /**
+     * Bookings of one room ordered by check-in date.
+     */
+    public List<Booking> getBookingsForRoom(String roomId) {
+        RoomSchedule s = schedules.get(roomId);
+        return s == null ? new ArrayList<>() : new ArrayList<>(s.getStays());
+    }
+
+    public List<Booking> getArrivals(LocalDate date) {
+        return index.arrivingBetween(date, date);
+    }
+
+    public List<Booking> getDepartures(LocalDate date) {
+        return index.departingBetween(date, date);
+    }
+
+    /**
+     * Bookings checking in between the two dates, inclusive, ordered by check-in date.
+     */
+    public List<Booking> getArrivals(LocalDate from, LocalDate to) {
+        return index.arrivingBetween(from, to);
+    }
+
+    /**
+     * Bookings checking out between the two dates, inclusive, ordered by check-out date.
+     */
+    public List<Booking> getDepartures(LocalDate from, LocalDate to) {
+        return index.departingBetween(from, to);
     }
 
     /**
      * Search available rooms for the date range and optional category.
+     * Answers from the search cache when it can; otherwise reads the per-room
+     * indexes without locking and caches the result.
      */
-    public synchronized List<Room> searchAvailable(LocalDate checkIn, LocalDate checkOut, Room.Category category) {
-        List<Room> candidates = rooms.values().stream()
-                .filter(r -> category == null || r.getCategory() == category)
-                .collect(Collectors.toList());
+    public List<Room> searchAvailable(LocalDate checkIn, LocalDate checkOut, Room.Category category) {
+        long t = Metrics.SEARCH.start();
+        try {
+            return searchAvailableTimed(checkIn, checkOut, category);
+        } finally {
+            Metrics.SEARCH.stop(t);
+        }
+    }
 
-        return candidates.stream().filter(r -> isRoomAvailable(r.getId(), checkIn, checkOut)).collect(Collectors.toList());
+    private List<Room> searchAvailableTimed(LocalDate checkIn, LocalDate checkOut, Room.Category category) {
+        long in = checkIn.toEpochDay(), out = checkOut.toEpochDay();
+        if (!inLoadedRange(checkIn)) return new ArrayList<>();
+        List<Room> result = searchCache.get(in, out, category);
+        if (result == null) {
+            long generation = searchCache.generation();
+            result = new ArrayList<>();
+            for (RoomSlot slot : roomSlots) {
+                if (category != null && slot.room.getCategory() != category) continue;
+                if (slot.schedule.isFree(in, out)) result.add(slot.room);
+            }
+            searchCache.put(in, out, category, result, generation);
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Hit/miss statistics of the search result cache. Its size comes from
+     * {@code -Dhotel.searchCache.size} (default 1024, 0 disables it).
+     */
+    public SearchCache getSearchCache() {
+        return searchCache;
     }
 
     /**
      * True if no booking overlaps [checkIn, checkOut)
      */
-    public synchronized boolean isRoomAvailable(String roomId, LocalDate checkIn, LocalDate checkOut) {
-        for (Booking b : bookings.values()) {
-            if (!b.getRoomId().equals(roomId)) continue;
-            // overlap check: if (start1 < end2) && (start2 < end1)
-            if (b.getCheckIn().isBefore(checkOut) && checkIn.isBefore(b.getCheckOut())) {
-                return false;
+    public boolean isRoomAvailable(String roomId, LocalDate checkIn, LocalDate checkOut) {
+        RoomSchedule s = schedules.get(roomId);
+        return inLoadedRange(checkIn) && (s == null || s.isFree(checkIn, checkOut));
+    }
+
+    /**
+     * Rooms (of the category, or all when null) that have at least {@code nights}
+     * consecutive free nights somewhere in [from, to), e.g. "any 3-night window in March".
+     */
+    public List<Room> findRoomsWithFreeWindow(LocalDate from, LocalDate to, int nights, Room.Category category) {
+        long f = from.toEpochDay(), t = to.toEpochDay();
+        List<Room> result = new ArrayList<>();
+        for (RoomSlot slot : roomSlots) {
+            if (category != null && slot.room.getCategory() != category) continue;
+            if (slot.schedule.hasFreeWindow(f, t, nights)) result.add(slot.room);
+        }
+        return result;
+    }
+
+    /**
+     * Free-night count per room (of the category, or all when null) over [from, to),
+     * in room order. Rooms with no free night are left out.
+     */
+    public Map<Room, Integer> freeNights(LocalDate from, LocalDate to, Room.Category category) {
+        Map<Room, Integer> result = new LinkedHashMap<>();
+        long f = from.toEpochDay(), t = to.toEpochDay();
+        for (RoomSlot slot : roomSlots) {
+            if (category != null && slot.room.getCategory() != category) continue;
+            int free = slot.schedule.freeNights(f, t);
+            if (free > 0) result.put(slot.room, free);
+        }
+        return result;
+    }
+
+    /**
+     * Why a new stay over [checkIn, checkOut) is not acceptable, or null if it is:
+     * check-out must follow check-in by at most {@link #MAX_NIGHTS} nights and both
+     * dates must lie within {@link #BOOKING_HORIZON_DAYS} of today.
+     */
+    public static String checkStay(LocalDate checkIn, LocalDate checkOut) {
+        if (!checkIn.isBefore(checkOut)) return "Check-out must be after check-in";
+        if (checkOut.toEpochDay() - checkIn.toEpochDay() > MAX_NIGHTS) return "Stays are limited to " + MAX_NIGHTS + " nights";
+        LocalDate today = LocalDate.now();
+        if (checkIn.isBefore(today.minusDays(BOOKING_HORIZON_DAYS)) || checkOut.isAfter(today.plusDays(BOOKING_HORIZON_DAYS))) {
+            return "Dates must be within " + BOOKING_HORIZON_DAYS + " days of today";
+        }
+        return null;
+    }
+
+    private static void requireValidStay(LocalDate checkIn, LocalDate checkOut) {
+        String problem = checkStay(checkIn, checkOut);
+        if (problem != null) throw new IllegalArgumentException(problem);
+    }
+
+    /**
+     * Create a booking and persist it. Returns the bookingId or null on failure.
+     * Only bookings for the same room contend; the availability check and insert
+     * happen atomically under that room's lock. Throws IllegalArgumentException for
+     * a stay {@link #checkStay} refuses.
+     */
+    public Booking createBooking(String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, boolean paid) {
+        requireValidStay(checkIn, checkOut);
+        long t = Metrics.CREATE_BOOKING.start();
+        try {
+            return createBookingTimed(roomId, guestName, checkIn, checkOut, paid);
+        } finally {
+            Metrics.CREATE_BOOKING.stop(t);
+        }
+    }
+
+    private Booking createBookingTimed(String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, boolean paid) {
+        Room r = rooms.get(roomId);
+        if (r == null) return null;
+        RoomSchedule s = scheduleFor(roomId);
+        Booking booking;
+        long seq, v;
+        lockCheckpoint();
+        try {
+            long w = Metrics.ROOM_LOCK_WAIT.start();
+            synchronized (s) {
+                Metrics.ROOM_LOCK_WAIT.stop(w);
+                if (!inLoadedRange(checkIn) || !s.isFree(checkIn, checkOut)) return null;
+                booking = newBooking(r, guestName, checkIn, checkOut, paid);
+                seq = journalCreated(booking);
+                v = apply(s, booking);
             }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        try {
+            commit(seq); // persist, outside any lock
+        } finally {
+            publish(v, l -> l.bookingCreated(booking));
+        }
+        return booking;
+    }
+
+    public boolean cancelBooking(String bookingId) {
+        long t = Metrics.CANCEL_BOOKING.start();
+        try {
+            return cancelBookingTimed(bookingId);
+        } finally {
+            Metrics.CANCEL_BOOKING.stop(t);
+        }
+    }
+
+    private boolean cancelBookingTimed(String bookingId) {
+        Booking b = getBookingById(bookingId);
+        if (b == null || isSealed(b)) return false;
+        RoomSchedule s = scheduleFor(b.getRoomId());
+        long seq, v;
+        lockCheckpoint();
+        try {
+            long w = Metrics.ROOM_LOCK_WAIT.start();
+            synchronized (s) {
+                Metrics.ROOM_LOCK_WAIT.stop(w);
+                if (loadedBooking(bookingId) != b) return false; // cancelled concurrently
+                BookingJournal j = journal();
+                seq = j != null ? j.logCancelled(b) : -1; // before changing memory, see journalCreated()
+                s.remove(b);
+                occupancyChanged(b.getRoomId(), b.checkInDay(), b.checkOutDay());
+                index.remove(b);
+                segments.markDirty(BookingSegments.monthOf(b.checkOutDay()));
+                synchronized (bookings) {
+                    bookings.remove(b);
+                    v = ++version; // last, so a failed change never leaves a version unpublished
+                }
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        try {
+            commit(seq);
+        } finally {
+            publish(v, l -> l.bookingCancelled(b));
         }
         return true;
     }
 
     /**
-     * Create a booking and persist it. Returns the bookingId or null on failure.
+     * Record a payment status change for an existing booking.
      */
-    public synchronized Booking createBooking(String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, boolean paid) {
-        if (!isRoomAvailable(roomId, checkIn, checkOut)) return null;
+    public boolean updatePayment(String bookingId, boolean paid) {
+        Booking b = getBookingById(bookingId);
+        if (b == null || isSealed(b)) return false;
+        RoomSchedule s = scheduleFor(b.getRoomId());
+        long seq, v;
+        lockCheckpoint();
+        try {
+            synchronized (s) {
+                if (loadedBooking(bookingId) != b) return false; // cancelled, or unloaded by archive()
+                BookingJournal j = journal();
+                seq = j != null ? j.logPayment(b, paid) : -1;
+                segments.markDirty(BookingSegments.monthOf(b.checkOutDay()));
+                synchronized (bookings) {
+                    b.setPaid(paid);
+                    v = ++version;
+                }
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        try {
+            commit(seq);
+        } finally {
+            publish(v, l -> l.bookingUpdated(b));
+        }
+        return true;
+    }
+
+    private Booking newBooking(Room r, String guestName, LocalDate checkIn, LocalDate checkOut, boolean paid) {
+        return new Booking(r.getId(), guestName, checkIn, checkOut, pricing.quote(r, checkIn, checkOut), paid);
+    }
+
+    /**
+     * Journal a new booking; returns the sequence to commit. Called before {@link #apply}
+     * so a failed append leaves no trace in memory.
+     */
+    private long journalCreated(Booking booking) {
+        BookingJournal j = journal();
+        return j != null ? j.logCreated(booking) : -1;
+    }
+
+    /**
+     * Add a journaled booking to the in-memory state. Caller holds the room lock and
+     * the checkpoint read lock, and has checked availability. Returns its version,
+     * which is taken last: every version handed out belongs to a change that was made
+     * and must be published, or event delivery would stall at the gap.
+     */
+    private long apply(RoomSchedule s, Booking booking) {
+        s.add(booking);
+        occupancyChanged(booking.getRoomId(), booking.checkInDay(), booking.checkOutDay());
+        index.add(booking);
+        segments.markDirty(BookingSegments.monthOf(booking.checkOutDay()));
+        synchronized (bookings) {
+            bookings.put(booking);
+            return ++version;
+        }
+    }
+
+    /**
+     * True if a stay from the date cannot overlap bookings that are on disk only.
+     */
+    private boolean inLoadedRange(LocalDate checkIn) {
+        return checkIn.toEpochDay() >= segments.loadedFromDay();
+    }
+
+    private boolean isSealed(Booking b) {
+        return segments.isSealed(BookingSegments.monthOf(b.checkOutDay()));
+    }
+
+    /**
+     * Drop cached searches that a change to the room's nights (epoch days [inDay, outDay))
+     * could affect. Called under the room lock, after the schedule changed.
+     */
+    private void occupancyChanged(String roomId, long inDay, long outDay) {
+        Room r = rooms.get(roomId);
+        if (r != null) searchCache.invalidate(r.getCategory(), inDay, outDay);
+        else searchCache.clear();
+    }
+
+    // --- Group bookings ---
+
+    /**
+     * Book many stays atomically: either all requests are booked or none is.
+     * All rooms involved are locked together (in room id order, so concurrent
+     * batches cannot deadlock), every request is checked in one pass, and the
+     * whole batch is made durable with a single journal commit.
+     */
+    public BatchResult createBookings(List<BookingRequest> requests) {
+        int n = requests.size();
+        BatchResult.Status[] status = new BatchResult.Status[n];
+        Booking[] booked = new Booking[n];
+        long[] versions = new long[n];
+
+        // per-request validation, then group by room
+        SortedMap<String, List<Integer>> byRoom = new TreeMap<>();
+        for (int i = 0; i < n; i++) {
+            BookingRequest q = requests.get(i);
+            if (rooms.get(q.getRoomId()) == null || checkStay(q.getCheckIn(), q.getCheckOut()) != null) {
+                status[i] = BatchResult.Status.INVALID;
+            } else {
+                byRoom.computeIfAbsent(q.getRoomId(), k -> new ArrayList<>()).add(i);
+            }
+        }
+        List<RoomSchedule> locks = new ArrayList<>();
+        for (String roomId : byRoom.keySet()) locks.add(scheduleFor(roomId));
+
+        long[] seq = {0};
+        boolean[] committed = {false};
+        try {
+            createBookingsLocked(requests, byRoom, locks, status, booked, versions, seq, committed);
+            if (committed[0] && n > 0) commit(seq[0]); // one fsync for the whole batch
+        } finally {
+            // every applied booking has a version and must be published, even if a later one failed
+            for (int i = 0; i < n; i++) {
+                Booking b = booked[i];
+                if (versions[i] != 0) publish(versions[i], l -> l.bookingCreated(b));
+            }
+        }
+
+        List<BatchResult.Item> items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            BatchResult.Status st = status[i] != null ? status[i] : BatchResult.Status.ABORTED;
+            items.add(new BatchResult.Item(requests.get(i), st, booked[i]));
+        }
+        return new BatchResult(committed[0], items);
+    }
+
+    /**
+     * Check and apply a batch under the checkpoint read lock and all its room locks.
+     */
+    private void createBookingsLocked(List<BookingRequest> requests, SortedMap<String, List<Integer>> byRoom, List<RoomSchedule> locks,
+                                      BatchResult.Status[] status, Booking[] booked, long[] versions, long[] seq, boolean[] committed) {
+        int n = requests.size();
+        lockCheckpoint();
+        try {
+            withRoomLocks(locks, 0, () -> {
+                boolean ok = !Arrays.asList(status).contains(BatchResult.Status.INVALID);
+                int k = 0;
+                for (List<Integer> items : byRoom.values()) {
+                    RoomSchedule s = locks.get(k++);
+                    items.sort(Comparator.comparing(i -> requests.get(i).getCheckIn()));
+                    LocalDate prevOut = null;
+                    for (int i : items) {
+                        BookingRequest q = requests.get(i);
+                        if (prevOut != null && q.getCheckIn().isBefore(prevOut)) status[i] = BatchResult.Status.CONFLICT;
+                        else if (!inLoadedRange(q.getCheckIn()) || !s.isFree(q.getCheckIn(), q.getCheckOut())) status[i] = BatchResult.Status.UNAVAILABLE;
+                        ok &= status[i] == null;
+                        if (prevOut == null || q.getCheckOut().isAfter(prevOut)) prevOut = q.getCheckOut();
+                    }
+                }
+                if (!ok) return;
+                List<Booking> batch = new ArrayList<>(n);
+                for (List<Integer> items : byRoom.values()) {
+                    for (int i : items) {
+                        BookingRequest q = requests.get(i);
+                        booked[i] = newBooking(rooms.get(q.getRoomId()), q.getGuestName(), q.getCheckIn(), q.getCheckOut(), q.isPaid());
+                        batch.add(booked[i]);
+                    }
+                }
+                // journal the whole batch first, in one write, so a failed append books nothing
+                BookingJournal j = journal();
+                seq[0] = j != null ? j.logCreated(batch) : -1;
+                k = 0;
+                for (List<Integer> items : byRoom.values()) {
+                    RoomSchedule s = locks.get(k++);
+                    for (int i : items) {
+                        versions[i] = apply(s, booked[i]);
+                        status[i] = BatchResult.Status.BOOKED;
+                    }
+                }
+                committed[0] = true;
+            });
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run the action while holding the monitors of all given schedules, taken in list order.
+     */
+    private static void withRoomLocks(List<RoomSchedule> locks, int from, Runnable action) {
+        if (from == locks.size()) { action.run(); return; }
+        synchronized (locks.get(from)) {
+            withRoomLocks(locks, from + 1, action);
+        }
+    }
+
+    // --- Holds ---
+
+    /**
+     * Hold a room for the date range so payment can be taken without a lock on
+     * inventory. The hold counts against availability until it is confirmed,
+     * released or expires after {@code ttl}, at most {@link #MAX_HOLD_TTL}. Returns null
+     * if the room is not free; throws IllegalArgumentException for a stay
+     * {@link #checkStay} refuses. Holds are kept in memory only.
+     */
+    public RoomHold placeHold(String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, Duration ttl) {
+        requireValidStay(checkIn, checkOut);
+        if (ttl.compareTo(MAX_HOLD_TTL) > 0) ttl = MAX_HOLD_TTL;
         Room r = rooms.get(roomId);
-        double nights = (double) (checkOut.toEpochDay() - checkIn.toEpochDay());
-        double amount = r.getPricePerNight() * nights;
-        Booking booking = new Booking(roomId, guestName, checkIn, checkOut, amount, paid);
-        bookings.put(booking.getBookingId(), booking);
-        saveBookings(); // persist
+        if (r == null) return null;
+        RoomSchedule s = scheduleFor(roomId);
+        RoomHold hold;
+        synchronized (s) {
+            if (!inLoadedRange(checkIn) || !s.isFree(checkIn, checkOut)) return null;
+            hold = new RoomHold(roomId, guestName, checkIn, checkOut, pricing.quote(r, checkIn, checkOut), Instant.now().plus(ttl));
+            s.addHold(hold);
+            occupancyChanged(roomId, checkIn.toEpochDay(), checkOut.toEpochDay());
+            holds.put(hold.getHoldId(), hold);
+        }
+        scheduleExpiry(hold.getHoldId(), ttl.toMillis());
+        return hold;
+    }
+
+    /**
+     * Turn a live hold into a booking at the price quoted for the hold.
+     * Returns null if the hold is unknown or has expired.
+     */
+    public Booking confirmHold(String holdId, boolean paid) {
+        RoomHold hold = holds.get(holdId);
+        if (hold == null) return null;
+        RoomSchedule s = scheduleFor(hold.getRoomId());
+        Booking booking;
+        long seq, v;
+        lockCheckpoint();
+        try {
+            synchronized (s) {
+                if (hold.isExpired() || !inLoadedRange(hold.getCheckIn()) || !holds.remove(holdId, hold)) return null;
+                s.removeHold(hold);
+                booking = new Booking(hold.getRoomId(), hold.getGuestName(), hold.getCheckIn(), hold.getCheckOut(), hold.getAmount(), paid);
+                try {
+                    seq = journalCreated(booking);
+                } catch (RuntimeException e) {
+                    s.addHold(hold); // not journaled: keep the hold so it can be retried or expire
+                    holds.put(holdId, hold);
+                    throw e;
+                }
+                v = apply(s, booking);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        cancelExpiry(holdId);
+        try {
+            commit(seq);
+        } finally {
+            publish(v, l -> l.bookingCreated(booking));
+        }
         return booking;
     }
 
-    public synchronized boolean cancelBooking(String bookingId) {
-        Booking b = bookings.remove(bookingId);
-        if (b != null) { saveBookings(); return true; }
-        return false;
+    /**
+     * Give up a hold and free its dates. Also used by the expiry sweeper. Returns
+     * false if the hold is unknown or a payment for it is in flight.
+     */
+    public boolean releaseHold(String holdId) {
+        RoomHold hold = holds.get(holdId);
+        if (hold == null) return false;
+        RoomSchedule s = scheduleFor(hold.getRoomId());
+        synchronized (s) {
+            if (hold.isPaymentInFlight() || !holds.remove(holdId, hold)) return false;
+            s.removeHold(hold);
+            occupancyChanged(hold.getRoomId(), hold.getCheckIn().toEpochDay(), hold.getCheckOut().toEpochDay());
+        }
+        cancelExpiry(holdId);
+        return true;
+    }
+
+    /**
+     * True while any hold is live; holds are lost if the hotel is unloaded.
+     */
+    boolean hasHolds() {
+        return !holds.isEmpty();
+    }
+
+    public RoomHold getHoldById(String holdId) {
+        return holds.get(holdId);
+    }
+
+    /**
+     * Mark a live hold as having a payment in flight so that only one caller
+     * charges for it. For up to {@code maxCharge} (at most {@link #MAX_PAYMENT_CLAIM})
+     * the hold neither lapses nor can be released, so it can still be confirmed once
+     * the charge goes through. Returns null if the hold is unknown, expired or already
+     * claimed. Follow with {@link #confirmHold}, or {@link #releasePaymentClaim}
+     * if the payment fails.
+     */
+    public RoomHold claimHoldForPayment(String holdId, Duration maxCharge) {
+        RoomHold hold = holds.get(holdId);
+        if (hold == null) return null;
+        if (maxCharge.compareTo(MAX_PAYMENT_CLAIM) > 0) maxCharge = MAX_PAYMENT_CLAIM;
+        synchronized (scheduleFor(hold.getRoomId())) {
+            if (holds.get(holdId) != hold || hold.isExpired() || !hold.claimPayment(Instant.now().plus(maxCharge))) return null;
+        }
+        return hold;
+    }
+
+    /**
+     * Let the hold be paid for again after a failed payment. A hold whose time ran
+     * out during the payment is released.
+     */
+    public void releasePaymentClaim(RoomHold hold) {
+        synchronized (scheduleFor(hold.getRoomId())) {
+            hold.releasePayment();
+        }
+        if (hold.isExpired()) releaseHold(hold.getHoldId());
+    }
+
+    private void scheduleExpiry(String holdId, long delayMillis) {
+        holdExpiry.put(holdId, expirySweeper().schedule(() -> expireHold(holdId), delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Release a hold whose time is up, or look again when the claim of a payment in
+     * flight for it runs out.
+     */
+    private void expireHold(String holdId) {
+        holdExpiry.remove(holdId);
+        RoomHold hold = holds.get(holdId);
+        if (hold == null) return;
+        Instant claimed = hold.getClaimedUntil();
+        if (claimed != null && hold.isPaymentInFlight()) {
+            scheduleExpiry(holdId, Math.max(1, Duration.between(Instant.now(), claimed).toMillis()));
+        } else if (!releaseHold(holdId) && holds.get(holdId) == hold) {
+            scheduleExpiry(holdId, 1); // claimed in between: the next look finds the claim
+        }
+    }
+
+    private void cancelExpiry(String holdId) {
+        ScheduledFuture<?> f = holdExpiry.remove(holdId);
+        if (f != null) f.cancel(false);
+    }
+
+    private ScheduledExecutorService expirySweeper() {
+        ScheduledExecutorService e = sweeper;
+        if (e != null) return e;
+        synchronized (this) {
+            if (sweeper == null) {
+                ScheduledThreadPoolExecutor ex = new ScheduledThreadPoolExecutor(1, ThreadPools.daemonFactory("hold-expiry"));
+                ex.setRemoveOnCancelPolicy(true); // confirmed holds don't linger in the queue
+                sweeper = ex;
+            }
+            return sweeper;
+        }
+    }
+
+    /**
+     * Stop background threads and flush the journal.
+     */
+    public synchronized void close() {
+        if (sweeper != null) { sweeper.shutdownNow(); sweeper = null; }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close booking journal: " + e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    // --- Change notifications ---
+
+    public void addBookingListener(BookingListener l) {
+        listeners.add(l);
+    }
+
+    public void removeBookingListener(BookingListener l) {
+        listeners.remove(l);
+    }
+
+    private void publishReload(long v, List<Booking> snapshot) {
+        List<Booking> view = Collections.unmodifiableList(snapshot);
+        publish(v, l -> l.bookingsReloaded(view));
+    }
+
+    /**
+     * Queue the event of change {@code v} once it is durable, then deliver every
+     * queued event whose predecessors have all been delivered. Called without holding
+     * any lock. One thread delivers at a time, so listeners see changes one by one in
+     * the order they were made even though commits finish out of order.
+     */
+    private void publish(long v, Consumer<BookingListener> event) {
+        pendingEvents.put(v, event);
+        while (nextEventReady() && delivering.compareAndSet(false, true)) {
+            deliverer = Thread.currentThread();
+            try {
+                Map.Entry<Long, Consumer<BookingListener>> e;
+                while ((e = pendingEvents.firstEntry()) != null && e.getKey() == delivered + 1) {
+                    pendingEvents.remove(e.getKey());
+                    delivered = e.getKey();
+                    fire(e.getValue());
+                }
+            } finally {
+                deliverer = null;
+                delivering.set(false);
+                if (awaiting.get() > 0) {
+                    synchronized (deliveredSignal) {
+                        deliveredSignal.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until listeners have seen change {@code v}, e.g. when another thread was
+     * delivering when it was published. Returns at once from inside a listener.
+     */
+    private void awaitDelivered(long v) {
+        if (delivered >= v || deliverer == Thread.currentThread()) return;
+        boolean interrupted = false;
+        awaiting.incrementAndGet(); // before re-checking, so a delivery finishing now sees us
+        try {
+            synchronized (deliveredSignal) {
+                while (delivered < v) {
+                    try {
+                        deliveredSignal.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            awaiting.decrementAndGet();
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean nextEventReady() {
+        Map.Entry<Long, Consumer<BookingListener>> e = pendingEvents.firstEntry();
+        return e != null && e.getKey() == delivered + 1;
+    }
+
+    private void fire(Consumer<BookingListener> event) {
+        for (BookingListener l : listeners) {
+            try {
+                event.accept(l);
+            } catch (RuntimeException e) {
+                System.err.println("Booking listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Take the checkpoint read lock for a change; refused while a failed commit
+     * leaves the journal's contents unknown.
+     */
+    private void lockCheckpoint() {
+        RuntimeException failed = writeFailure;
+        if (failed != null) {
+            throw new IllegalStateException("Bookings are read-only after a failed write (" + failed.getMessage() + "); reload or save them", failed);
+        }
+        long w = Metrics.CHECKPOINT_LOCK_WAIT.start();
+        checkpointLock.readLock().lock();
+        Metrics.CHECKPOINT_LOCK_WAIT.stop(w);
+    }
+
+    private RoomSchedule scheduleFor(String roomId) {
+        return schedules.computeIfAbsent(roomId, k -> new RoomSchedule());
+    }
+
+    private void rebuildIndexes() {
+        holds.clear();
+        holdExpiry.values().forEach(f -> f.cancel(false));
+        holdExpiry.clear();
+        schedules.clear();
+        index.clear();
+        for (Booking b : bookings.values()) {
+            scheduleFor(b.getRoomId()).add(b);
+            index.add(b);
+        }
+        publishRoomSlots();
+        searchCache.clear();
+    }
+
+    /**
+     * Pair each room with its schedule so scans walk an array instead of doing
+     * a map lookup per room. Called whenever rooms or schedules are replaced.
+     */
+    private synchronized void publishRoomSlots() {
+        Map<String, Room> current = rooms;
+        RoomSlot[] slots = new RoomSlot[current.size()];
+        int i = 0;
+        for (Room r : current.values()) slots[i++] = new RoomSlot(r, scheduleFor(r.getId()));
+        roomSlots = slots;
+    }
+
+    private static final class RoomSlot {
+        final Room room;
+        final RoomSchedule schedule;
+
+        RoomSlot(Room room, RoomSchedule schedule) {
+            this.room = room;
+            this.schedule = schedule;
+        }
+    }
+
+    // --- History ---
+
+    /**
+     * Months whose bookings are on disk only, oldest first.
+     */
+    public List<YearMonth> getColdPartitions() {
+        List<YearMonth> result = new ArrayList<>();
+        for (int m : segments.coldMonths()) result.add(BookingSegments.yearMonth(m));
+        return result;
+    }
+
+    /**
+     * Load the bookings of months {@code from} to {@code to} (inclusive) that are
+     * still on disk, so they show up in lookups and reports. Sealed months stay
+     * read-only. Listeners, including the reports, have seen them on return.
+     */
+    public void loadHistory(YearMonth from, YearMonth to) {
+        loadMonths(BookingSegments.monthOf(from), BookingSegments.monthOf(to));
+    }
+
+    /**
+     * Load every month still on disk that may hold a stay ending after {@code day}:
+     * segments are split by check-out month, so that is its month and all later
+     * ones. Reports call this before summing a range that starts at {@code day}.
+     */
+    public void loadHistoryFrom(LocalDate day) {
+        int from = BookingSegments.monthOf(YearMonth.from(day));
+        List<Integer> cold = segments.coldMonths();
+        if (cold.isEmpty() || cold.get(cold.size() - 1) < from) return;
+        loadMonths(from, Integer.MAX_VALUE);
+    }
+
+    public void loadAllHistory() {
+        loadMonths(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private void loadMonths(int from, int to) {
+        boolean loaded = false;
+        long v = 0;
+        List<Booking> snapshot = null;
+        checkpointLock.writeLock().lock();
+        try {
+            synchronized (bookings) {
+                for (int m : segments.coldMonths()) {
+                    if (m < from || m > to) continue;
+                    try {
+                        loadSegmentLocked(m);
+                        loaded = true;
+                    } catch (IOException e) {
+                        System.err.println("Failed to load bookings for " + BookingSegments.yearMonth(m) + ": " + e.getMessage());
+                    }
+                }
+                if (loaded) {
+                    v = ++version;
+                    snapshot = bookings.values();
+                }
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (loaded) {
+            publishReload(v, snapshot);
+            awaitDelivered(v);
+        }
+    }
+
+    /**
+     * Seal the months before {@code before} (never the current month) and drop their
+     * bookings from memory. Sealed bookings can still be found and loaded but not
+     * cancelled or changed. Returns the number of months newly sealed.
+     */
+    public int archive(YearMonth before) {
+        int limit = Math.min(BookingSegments.monthOf(before), BookingSegments.monthOf(YearMonth.now()));
+        int sealed = 0;
+        boolean unloaded = false;
+        long v = 0;
+        List<Booking> snapshot = null;
+        checkpointLock.writeLock().lock();
+        try {
+            synchronized (bookings) {
+                if (!saveBookingsLocked()) return 0;
+                Set<Integer> months = new TreeSet<>(segments.loadedMonths());
+                months.addAll(segments.coldMonths());
+                months.removeIf(m -> m >= limit);
+                for (int m : months) {
+                    if (segments.isSealed(m)) continue;
+                    segments.seal(m);
+                    sealed++;
+                }
+                for (Booking b : bookings.values()) {
+                    if (!months.contains(BookingSegments.monthOf(b.checkOutDay()))) continue;
+                    bookings.remove(b);
+                    scheduleFor(b.getRoomId()).remove(b);
+                    index.remove(b);
+                    unloaded = true;
+                }
+                for (int m : months) segments.unloaded(m);
+                if (unloaded) {
+                    v = ++version;
+                    snapshot = bookings.values();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to archive bookings: " + e.getMessage());
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (unloaded) publishReload(v, snapshot);
+        return sealed;
+    }
+
+    /**
+     * Archive everything older than the last {@code keepMonths} months now and then daily.
+     */
+    public void scheduleArchival(int keepMonths) {
+        expirySweeper().scheduleWithFixedDelay(() -> archive(YearMonth.now().minusMonths(keepMonths)), 0, 1, TimeUnit.DAYS);
     }
 
     // --- Persistence ---
 
-    @SuppressWarnings("unchecked")
-    public synchronized void load() {
+    /**
+     * Wait until the journal record is durable; compacts the journal when it has grown large.
+     * A negative sequence means the journal is unavailable and the full snapshot is written instead.
+     * If the sync fails the change is already in memory and may or may not be on disk, and
+     * a later sync can report success for data that was lost, so no further changes are
+     * accepted until a reload reads back what is on disk or a full save captures memory.
+     */
+    private void commit(long seq) {
+        if (seq < 0) { saveBookings(); return; }
+        BookingJournal j = journal;
+        try {
+            j.commit(seq);
+        } catch (RuntimeException e) {
+            writeFailure = e;
+            throw e;
+        }
+        if (j.size() >= COMPACT_THRESHOLD) {
+            checkpointLock.writeLock().lock();
+            try {
+                // another writer may have compacted while we waited for the lock
+                if (j.size() >= COMPACT_THRESHOLD) {
+                    synchronized (bookings) {
+                        saveBookingsLocked();
+                    }
+                }
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+        }
+    }
+
+    private BookingJournal journal() {
+        BookingJournal j = journal;
+        if (j != null) return j;
+        synchronized (this) {
+            if (journal == null) {
+                try {
+                    journal = new BookingJournal(new File(dataDir, JOURNAL_FILE));
+                } catch (IOException e) {
+                    System.err.println("Failed to open booking journal: " + e.getMessage());
+                }
+            }
+            return journal;
+        }
+    }
+
+    public void load() {
+        long v;
+        List<Booking> snapshot;
+        checkpointLock.writeLock().lock();
+        try {
+            synchronized (bookings) {
+                try {
+                    writeFailure = null;
+                    loadLocked();
+                } finally {
+                    v = ++version;
+                    snapshot = bookings.values();
+                }
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        try {
+            File rules = new File(dataDir, PRICING_FILE);
+            if (rules.exists()) pricing.loadRules(rules);
+        } finally {
+            publishReload(v, snapshot);
+        }
+    }
+
+    private void loadLocked() {
         // Ensure data folder exists
-        File data = new File("data");
-        if (!data.exists()) data.mkdirs();
+        if (!dataDir.exists()) dataDir.mkdirs();
 
         // load rooms
-        File rf = new File(ROOMS_FILE);
+        File rf = new File(dataDir, ROOMS_FILE);
+        File legacyRooms = new File(dataDir, LEGACY_ROOMS_FILE);
         if (rf.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(rf))) {
-                Map<String, Room> loadedRooms = (Map<String, Room>) ois.readObject();
-                rooms.clear();
-                rooms.putAll(loadedRooms);
+            try {
+                rooms = Collections.unmodifiableMap(SnapshotCodec.readRooms(rf));
             } catch (Exception e) {
                 System.err.println("Failed to load rooms: " + e.getMessage());
             }
+            savedRooms = rooms;
+        } else if (legacyRooms.exists()) {
+            // migrate from the serialized format
+            Map<String, Room> loadedRooms = readLegacy(legacyRooms);
+            if (loadedRooms != null) {
+                rooms = Collections.unmodifiableMap(new LinkedHashMap<>(loadedRooms));
+                saveRooms();
+            }
         } else {
             // If file doesn't exist, create sample rooms
             createSampleRooms();
             saveRooms();
         }
 
-        // load bookings
-        File bf = new File(BOOKINGS_FILE);
+        // load bookings: the current and later months; older ones stay on disk
+        bookings.clear();
+        segments.scan();
+        File bf = new File(dataDir, BOOKINGS_FILE);
+        File legacyBookings = new File(dataDir, LEGACY_BOOKINGS_FILE);
+        boolean migrate = false;
         if (bf.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(bf))) {
-                Map<String, Booking> loadedBookings = (Map<String, Booking>) ois.readObject();
-                bookings.clear();
-                bookings.putAll(loadedBookings);
+            // a single snapshot from an earlier version; split it into segments
+            try {
+                for (Booking b : SnapshotCodec.readBookings(bf)) bookings.put(b);
+                migrate = true;
             } catch (Exception e) {
                 System.err.println("Failed to load bookings: " + e.getMessage());
             }
+        } else if (legacyBookings.exists() && !segments.exists()) {
+            Map<String, Booking> loadedBookings = readLegacy(legacyBookings);
+            if (loadedBookings != null) {
+                for (Booking b : loadedBookings.values()) bookings.put(b);
+                migrate = true;
+            }
+        }
+        if (migrate) {
+            // the old snapshot holds every month, so it supersedes any segments
+            for (int m : segments.coldMonths()) segments.markDirty(m);
+            for (Booking b : bookings.values()) segments.markDirty(BookingSegments.monthOf(b.checkOutDay()));
+        } else {
+            int current = BookingSegments.monthOf(YearMonth.now());
+            for (int m : segments.coldMonths()) {
+                if (m < current) continue;
+                try {
+                    loadSegmentLocked(m);
+                } catch (IOException e) {
+                    System.err.println("Failed to load bookings for " + BookingSegments.yearMonth(m) + ": " + e.getMessage());
+                }
+            }
+        }
+
+        // replay changes made since the last snapshot, loading older months they refer to
+        int replayed = 0;
+        try {
+            if (journal != null) { journal.close(); journal = null; }
+            replayed = BookingJournal.replay(new File(dataDir, JOURNAL_FILE), bookings, (hi, lo) -> {
+                int m = segments.findCold(hi, lo);
+                if (m < 0) return null;
+                loadSegmentLocked(m);
+                return bookings.get(hi, lo);
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to replay booking journal: " + e.getMessage());
+        }
+        if (replayed > 0) {
+            // every booking in memory must belong to a loaded month, and the replayed
+            // changes exist only in the journal until the next checkpoint
+            Set<Integer> months = new TreeSet<>();
+            for (Booking b : bookings.values()) months.add(BookingSegments.monthOf(b.checkOutDay()));
+            for (int m : months) {
+                if (!segments.isCold(m)) continue;
+                try {
+                    loadSegmentLocked(m);
+                } catch (IOException e) {
+                    System.err.println("Failed to load bookings for " + BookingSegments.yearMonth(m) + ": " + e.getMessage());
+                }
+            }
+            months.addAll(segments.loadedMonths()); // includes months emptied by replayed cancellations
+            for (int m : months) if (!segments.isCold(m)) segments.markDirty(m);
+        }
+        journal();
+        rebuildIndexes();
+        if (migrate && saveBookingsLocked() && bf.exists() && !bf.delete()) {
+            System.err.println("Failed to remove " + bf + " after splitting it into segments");
+        }
+    }
+
+    /**
+     * Read a cold month's segment into the table, schedules and index. Bookings
+     * already in memory (replayed from the journal) win over the segment's copy.
+     */
+    private void loadSegmentLocked(int month) throws IOException {
+        for (Booking b : segments.load(month)) {
+            if (bookings.get(b.idHi(), b.idLo()) != null) continue;
+            bookings.put(b);
+            scheduleFor(b.getRoomId()).add(b);
+            index.add(b);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Map<String, T> readLegacy(File f) {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            return (Map<String, T>) ois.readObject();
+        } catch (Exception e) {
+            System.err.println("Failed to migrate " + f + ": " + e.getMessage());
+            return null;
         }
     }
 
-    public synchronized void saveRooms() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ROOMS_FILE))) {
-            oos.writeObject(rooms);
+    public void saveRooms() {
+        Map<String, Room> current = rooms;
+        try {
+            SnapshotCodec.writeRooms(new File(dataDir, ROOMS_FILE), current.values());
+            savedRooms = current;
         } catch (Exception e) {
             System.err.println("Failed to save rooms: " + e.getMessage());
         }
     }
 
-    public synchronized void saveBookings() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(BOOKINGS_FILE))) {
-            oos.writeObject(bookings);
+    /**
+     * True if rooms were added, or bookings changed, since the last snapshot: a
+     * clean hotel can be closed without writing anything.
+     */
+    boolean hasUnsavedChanges() {
+        BookingJournal j = journal;
+        return rooms != savedRooms || !segments.dirtyMonths().isEmpty() || (j != null && j.size() > 0);
+    }
+
+    /**
+     * Rewrite the segments of every month changed since the last snapshot and, once
+     * they are safely on disk, truncate the journal.
+     */
+    public void saveBookings() {
+        checkpointLock.writeLock().lock();
+        try {
+            synchronized (bookings) {
+                saveBookingsLocked();
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    private boolean saveBookingsLocked() {
+        long t = Metrics.SNAPSHOT_WRITE.start();
+        boolean saved = false;
+        try {
+            List<Integer> months = new ArrayList<>(segments.dirtyMonths());
+            Map<Integer, List<Booking>> byMonth = new HashMap<>();
+            for (int m : months) byMonth.put(m, new ArrayList<>());
+            for (Booking b : bookings.values()) {
+                List<Booking> month = byMonth.get(BookingSegments.monthOf(b.checkOutDay()));
+                if (month != null) month.add(b);
+            }
+            segments.create();
+            for (int m : months) segments.write(m, byMonth.get(m)); // empty once all its bookings are cancelled
+            if (journal != null) journal.reset();
+            segments.dirtyMonths().removeAll(months);
+            writeFailure = null; // everything in memory is durable now
+            saved = true;
         } catch (Exception e) {
             System.err.println("Failed to save bookings: " + e.getMessage());
         }
+        Metrics.SNAPSHOT_WRITE.stop(t);
+        return saved;
     }
 
     private void createSampleRooms() {
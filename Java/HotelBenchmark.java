@@ -0,0 +1,275 @@
+package bench;
+
+import model.Booking;
+import model.Hotel;
+import model.Room;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Micro-benchmarks for the Hotel hot paths: search, availability checks, booking
+ * under contention, cold load and snapshot writes.
+ *
+ * Runs without external dependencies:
+ * <pre>
+ *   javac -d out src/model/*.java src/util/*.java src/bench/*.java
+ *   java -cp out bench.HotelBenchmark [rooms] [bookings] [threads]
+ * </pre>
+ * Synthetic properties are generated once per size under {@code bench-data/} and
+ * reused. Each benchmark is warmed up before being measured; throughput and bytes
+ * allocated per operation (from the thread allocation counters, like JMH's GC
+ * profiler) are printed per benchmark. For forked, JIT-isolated numbers use the JMH
+ * versions of these benchmarks under {@code jmh/} ({@code gradle jmh}).
+ */
+public class HotelBenchmark {
+
+    private static final LocalDate EPOCH = LocalDate.of(2024, 1, 1);
+    private static final int HORIZON_DAYS = 3 * 365;
+    private static final int WARMUP_MS = 1000;
+    private static final int MEASURE_MS = 3000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int bookings = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        File fixture = fixture(rooms, bookings);
+
+        System.out.printf("rooms=%d bookings=%d threads=%d%n%n", rooms, bookings, threads);
+        System.out.printf("%-28s %8s %14s %14s%n", "benchmark", "threads", "ops/s", "bytes/op");
+
+        benchColdLoad(fixture);
+
+        Hotel hotel = new Hotel(fixture);
+        hotel.load();
+        hotel.loadAllHistory(); // queries span past months too
+        List<Room> all = hotel.getAllRooms();
+
+        for (int t : new int[]{1, threads}) {
+            run("searchAvailable", t, i -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                LocalDate in = EPOCH.plusDays(r.nextInt(HORIZON_DAYS));
+                Room.Category c = r.nextInt(4) == 0 ? null : Room.Category.values()[r.nextInt(3)];
+                hotel.searchAvailable(in, in.plusDays(1 + r.nextInt(7)), c);
+            });
+            run("isRoomAvailable", t, i -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                LocalDate in = EPOCH.plusDays(r.nextInt(HORIZON_DAYS));
+                hotel.isRoomAvailable(all.get(r.nextInt(all.size())).getId(), in, in.plusDays(1 + r.nextInt(7)));
+            });
+        }
+
+        // bookings mutate the property, so run them against a scratch copy
+        File scratch = Files.createTempDirectory("hotel-bench").toFile();
+        copy(fixture, scratch);
+        Hotel writable = new Hotel(scratch);
+        writable.load();
+        for (int t : new int[]{1, threads}) {
+            // a small hot set of rooms so writers actually contend
+            int hot = Math.max(1, Math.min(all.size(), t * 4));
+            LocalDate today = LocalDate.now();
+            run("createBooking(hot " + hot + ")", t, i -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                LocalDate in = today.plusDays(r.nextInt(Hotel.BOOKING_HORIZON_DAYS - 3)); // within the booking horizon
+                Booking b = writable.createBooking(all.get(r.nextInt(hot)).getId(), "bench", in, in.plusDays(1 + r.nextInt(3)), true);
+                if (b != null && r.nextBoolean()) writable.cancelBooking(b.getBookingId());
+            });
+        }
+        benchSave(writable);
+        writable.close();
+        hotel.close();
+        delete(scratch);
+    }
+
+    /**
+     * The generated property for the size under {@code bench-data/}, created on first use.
+     */
+    static File fixture(int rooms, int bookings) throws IOException {
+        File fixture = new File("bench-data", rooms + "-" + bookings);
+        if (!new File(fixture, "bookings").isDirectory()) {
+            System.out.printf("Generating %d rooms / %d bookings in %s ...%n", rooms, bookings, fixture);
+            generate(fixture, rooms, bookings, 42L);
+        }
+        return fixture;
+    }
+
+    // --- Benchmarks ---
+
+    private static void benchColdLoad(File fixture) {
+        int runs = 5;
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int i = 0; i < runs; i++) {
+            System.gc();
+            long a0 = allocated();
+            long t0 = System.nanoTime();
+            Hotel h = new Hotel(fixture);
+            h.load();
+            long took = System.nanoTime() - t0;
+            bytes = allocated() - a0;
+            best = Math.min(best, took);
+            h.close();
+        }
+        System.out.printf("%-28s %8d %14s %14d   (best of %d: %.1f ms)%n", "load()", 1, "-", bytes, runs, best / 1e6);
+    }
+
+    private static void benchSave(Hotel hotel) {
+        int runs = 5;
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int i = 0; i < runs; i++) {
+            long a0 = allocated();
+            long t0 = System.nanoTime();
+            hotel.saveBookings();
+            best = Math.min(best, System.nanoTime() - t0);
+            bytes = allocated() - a0;
+        }
+        System.out.printf("%-28s %8d %14s %14d   (best of %d: %.1f ms)%n", "saveBookings()", 1, "-", bytes, runs, best / 1e6);
+    }
+
+    /**
+     * Run the operation on the given number of threads for a warmup and a measurement period.
+     */
+    private static void run(String name, int threads, IntConsumer op) throws Exception {
+        measure(threads, op, WARMUP_MS);
+        long[] result = measure(threads, op, MEASURE_MS);
+        long ops = result[0];
+        System.out.printf("%-28s %8d %14.0f %14d%n", name, threads, ops * 1e9 / result[2], ops == 0 ? 0 : result[1] / ops);
+    }
+
+    /**
+     * Returns operations, bytes allocated and the nanoseconds from the start signal
+     * until the last thread stopped, which includes each thread's final operation.
+     */
+    private static long[] measure(int threads, IntConsumer op, int millis) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong ops = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1]; // set before start opens, read after
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                ready.countDown();
+                start.await();
+                long a0 = allocated();
+                long n = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    op.accept((int) n);
+                    n++;
+                }
+                bytes.addAndGet(allocated() - a0);
+                ops.addAndGet(n);
+                return null;
+            }));
+        }
+        ready.await(); // don't count thread start-up
+        long t0 = System.nanoTime();
+        deadline[0] = t0 + TimeUnit.MILLISECONDS.toNanos(millis);
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        long elapsed = System.nanoTime() - t0;
+        pool.shutdown();
+        return new long[]{ops.get(), bytes.get(), elapsed};
+    }
+
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // --- Synthetic data ---
+
+    /**
+     * Generate a property: rooms split 60/30/10 across categories and bookings with
+     * a seasonal check-in distribution and mostly short stays. Stays that would
+     * overlap an existing stay of the same room are moved to the next free date.
+     * Written in the legacy serialized format so the first load also exercises migration.
+     */
+    static void generate(File dir, int roomCount, int bookingCount, long seed) throws IOException {
+        dir.mkdirs();
+        Random rnd = new Random(seed);
+        Map<String, Room> rooms = new LinkedHashMap<>();
+        for (int i = 0; i < roomCount; i++) {
+            double u = rnd.nextDouble();
+            Room.Category c = u < 0.6 ? Room.Category.STANDARD : u < 0.9 ? Room.Category.DELUXE : Room.Category.SUITE;
+            double base = c == Room.Category.STANDARD ? 2500 : c == Room.Category.DELUXE ? 4500 : 9000;
+            String id = String.format("R%06d", i + 1);
+            rooms.put(id, new Room(id, c, base + 100 * rnd.nextInt(10), c + " room " + (i + 1)));
+        }
+        String[] ids = rooms.keySet().toArray(new String[0]);
+        int[] nextFree = new int[roomCount]; // first free day per room, stays are laid out forward
+        int span = Math.max(HORIZON_DAYS, (int) ((long) bookingCount * 4 / Math.max(1, roomCount)) + 30);
+
+        Map<String, Booking> bookings = new LinkedHashMap<>();
+        for (int i = 0; i < bookingCount; i++) {
+            int room = rnd.nextInt(roomCount);
+            int nights = Math.min(14, 1 + (int) (-Math.log(1 - rnd.nextDouble()) * 1.5)); // mean ~2.5
+            // summer and December are busier: nudge towards those months
+            int day = nextFree[room] + rnd.nextInt(3);
+            int month = EPOCH.plusDays(day).getMonthValue();
+            if ((month >= 6 && month <= 8) || month == 12) day = nextFree[room];
+            if (day + nights > span) { i--; nextFree[room] = span; if (allFull(nextFree, span)) break; continue; }
+            nextFree[room] = day + nights;
+            Room r = rooms.get(ids[room]);
+            LocalDate in = EPOCH.plusDays(day);
+            Booking b = new Booking(ids[room], "Guest " + rnd.nextInt(bookingCount), in, in.plusDays(nights), r.getPricePerNight() * nights, rnd.nextInt(10) < 8);
+            bookings.put(b.getBookingId(), b);
+        }
+        writeObject(new File(dir, "rooms.dat"), rooms);
+        writeObject(new File(dir, "bookings.dat"), bookings);
+        Hotel migrated = new Hotel(dir);
+        migrated.load(); // migrate to snapshots once
+        migrated.close();
+    }
+
+    private static boolean allFull(int[] nextFree, int span) {
+        for (int d : nextFree) if (d < span) return false;
+        return true;
+    }
+
+    private static void writeObject(File f, Object o) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16))) {
+            oos.writeObject(o);
+        }
+    }
+
+    static void copy(File from, File to) throws IOException {
+        for (File f : Objects.requireNonNull(from.listFiles())) {
+            File target = new File(to, f.getName());
+            if (f.isDirectory()) {
+                target.mkdirs();
+                copy(f, target);
+            } else {
+                Files.copy(f.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    static void delete(File dir) throws IOException {
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
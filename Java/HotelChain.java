@@ -0,0 +1,338 @@
+package model;
+
+import util.ThreadPools;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Many properties served from one JVM. Each property is a {@link Hotel} shard
+ * with its own data directory (a subdirectory of the chain's root named after
+ * the property id) and its own locks.
+ *
+ * Shards are loaded on first use and evicted (snapshotted, then closed) once idle
+ * for {@code idleTimeout}, or least recently used first when more than
+ * {@code maxLoaded} are in memory. A shard is never evicted while an action is
+ * running on it or while it has live holds, since holds exist only in memory.
+ * Work reaches a shard through {@link #withProperty}, which pins it for the
+ * duration; listeners added to a shard are lost when it is evicted.
+ */
+public class HotelChain implements AutoCloseable {
+
+    private final File root;
+    private final int maxLoaded;
+    private final long idleNanos;
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>(); // propertyId -> shard
+    private final ExecutorService fanOut = ThreadPools.newPerTaskExecutor("chain");
+    private final Semaphore fanOutSlots; // maxLoaded permits: shards pinned by fan-outs at once
+    private final ScheduledThreadPoolExecutor sweeper = new ScheduledThreadPoolExecutor(1, ThreadPools.daemonFactory("chain-evict"));
+    // guarded by this: shards being read from disk, and shards chosen for eviction
+    private final Set<Shard> loading = new HashSet<>();
+    private final Set<Shard> evicting = new HashSet<>();
+
+    /**
+     * A chain whose properties are the subdirectories of {@code root}.
+     */
+    public HotelChain(File root, int maxLoaded, Duration idleTimeout) {
+        this.root = root;
+        this.maxLoaded = maxLoaded;
+        this.fanOutSlots = new Semaphore(Math.max(1, maxLoaded));
+        this.idleNanos = idleTimeout.toNanos();
+        if (!root.exists()) root.mkdirs();
+        File[] dirs = root.listFiles(File::isDirectory);
+        if (dirs != null) for (File d : dirs) shards.put(d.getName(), new Shard(d));
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public List<String> getPropertyIds() {
+        return new ArrayList<>(new TreeSet<>(shards.keySet()));
+    }
+
+    /**
+     * Register a property, creating its data directory. Returns false if it already exists.
+     */
+    public boolean addProperty(String propertyId) {
+        if (propertyId.isEmpty() || propertyId.contains("/") || propertyId.contains("\\") || propertyId.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid property id: " + propertyId);
+        }
+        File dir = new File(root, propertyId);
+        if (shards.putIfAbsent(propertyId, new Shard(dir)) != null) return false;
+        dir.mkdirs();
+        return true;
+    }
+
+    /**
+     * Number of shards currently in memory.
+     */
+    public int getLoadedCount() {
+        int n = 0;
+        for (Shard s : shards.values()) if (s.isLoaded()) n++;
+        return n;
+    }
+
+    /**
+     * Run the action on the property's hotel, loading it first if needed.
+     * Returns null if the property is unknown.
+     */
+    public <T> T withProperty(String propertyId, Function<Hotel, T> action) {
+        Shard s = shards.get(propertyId);
+        if (s == null) return null;
+        Hotel h = s.acquireIfLoaded();
+        if (h == null) h = load(s);
+        try {
+            return action.apply(h);
+        } finally {
+            s.release();
+            if (getLoadedCount() > maxLoaded) evictLeastRecentlyUsed(maxLoaded);
+        }
+    }
+
+    // --- Cross-property queries ---
+
+    /**
+     * Run the action on every property in parallel, but on no more than
+     * {@code maxLoaded} at once across all fan-outs, so a chain-wide query does not
+     * pin every shard into memory together. Properties already loaded go first.
+     * Results are keyed by property id in id order; a property whose action failed
+     * is left out.
+     */
+    public <T> Map<String, T> fanOut(Function<Hotel, T> action) {
+        List<String> ids = getPropertyIds();
+        List<Integer> order = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(i -> !shards.get(ids.get(i)).isLoaded()));
+        List<T> values = new ArrayList<>(Collections.nCopies(ids.size(), null));
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int n; (n = next.getAndIncrement()) < order.size(); ) {
+                int i = order.get(n);
+                fanOutSlots.acquireUninterruptibly();
+                try {
+                    values.set(i, withProperty(ids.get(i), action));
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to query property " + ids.get(i) + ": " + e.getMessage());
+                } finally {
+                    fanOutSlots.release();
+                }
+            }
+        };
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int w = Math.min(Math.max(1, maxLoaded), ids.size()); w > 0; w--) workers.add(CompletableFuture.runAsync(worker, fanOut));
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).join();
+        Map<String, T> result = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (values.get(i) != null) result.put(ids.get(i), values.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Available rooms per property for the date range and optional category.
+     * Properties with nothing free are left out.
+     */
+    public Map<String, List<Room>> searchAvailable(LocalDate checkIn, LocalDate checkOut, Room.Category category) {
+        Map<String, List<Room>> result = fanOut(h -> h.searchAvailable(checkIn, checkOut, category));
+        result.values().removeIf(List::isEmpty);
+        return result;
+    }
+
+    // --- Eviction ---
+
+    private void evictIdle() {
+        long idleBefore = System.nanoTime() - idleNanos;
+        for (Shard s : shards.values()) s.evictIfIdleSince(idleBefore);
+    }
+
+    /**
+     * Load and pin the shard. Its slot is reserved and the victims that make room
+     * for it chosen under the chain's monitor, so concurrent loads cannot together
+     * push the chain past {@code maxLoaded}; the victims are then evicted and the
+     * shard read from disk holding only the shards' own monitors.
+     */
+    private Hotel load(Shard s) {
+        while (true) {
+            boolean reserved = false, mayLoad;
+            List<Shard> victims = Collections.emptyList();
+            synchronized (this) {
+                if (!s.isLoaded() && loading.add(s)) {
+                    reserved = true;
+                    victims = chooseVictims(maxLoaded);
+                }
+                mayLoad = loading.contains(s); // ours, or another caller's reservation
+            }
+            try {
+                evict(victims);
+                Hotel h = s.acquire(mayLoad);
+                if (h != null) return h;
+                // it was being unloaded when we looked: reserve a slot and try again
+            } finally {
+                if (reserved) {
+                    synchronized (this) {
+                        loading.remove(s);
+                    }
+                }
+            }
+        }
+    }
+
+    private void evictLeastRecentlyUsed(int keep) {
+        List<Shard> victims;
+        synchronized (this) {
+            victims = chooseVictims(keep);
+        }
+        evict(victims);
+    }
+
+    /**
+     * Pick least recently used shards that look unused until no more than
+     * {@code keep} are loaded or loading, and mark them so that concurrent callers
+     * don't choose the same ones. Caller holds this and must {@link #evict} them.
+     */
+    private List<Shard> chooseVictims(int keep) {
+        List<Shard> loaded = new ArrayList<>();
+        for (Shard s : shards.values()) {
+            if (s.isLoaded() && !loading.contains(s) && !evicting.contains(s)) loaded.add(s);
+        }
+        loaded.sort(Comparator.comparingLong(Shard::lastUsed));
+        int excess = loaded.size() + loading.size() - keep;
+        List<Shard> victims = new ArrayList<>();
+        for (Shard s : loaded) {
+            if (excess <= 0) break;
+            if (s.looksUnused()) {
+                victims.add(s);
+                evicting.add(s);
+                excess--;
+            }
+        }
+        return victims;
+    }
+
+    private void evict(List<Shard> victims) {
+        for (Shard v : victims) {
+            try {
+                v.evictIfUnused(); // may find it pinned since; the next release retries
+            } finally {
+                synchronized (this) {
+                    evicting.remove(v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop eviction and snapshot and close every loaded shard.
+     */
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        fanOut.shutdown();
+        for (Shard s : shards.values()) s.unload();
+    }
+
+    /**
+     * One property. Its monitor guards loading and eviction only; bookings use
+     * the hotel's own locks. The chain's monitor is never taken while holding it.
+     */
+    private static final class Shard {
+        private final File dir;
+        private volatile Hotel hotel; // null while unloaded
+        private volatile int pins; // actions running on the hotel; written under this
+        private volatile long lastUsed = System.nanoTime();
+
+        Shard(File dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * Pin the hotel, reading it from disk first if {@code mayLoad}; null if it
+         * is not in memory and may not be loaded.
+         */
+        synchronized Hotel acquire(boolean mayLoad) {
+            if (hotel == null) {
+                if (!mayLoad) return null;
+                Hotel h = new Hotel(dir);
+                h.load();
+                hotel = h;
+            }
+            pins++;
+            lastUsed = System.nanoTime();
+            return hotel;
+        }
+
+        /**
+         * Pin the hotel if it is in memory; null if it needs loading.
+         */
+        synchronized Hotel acquireIfLoaded() {
+            if (hotel == null) return null;
+            pins++;
+            lastUsed = System.nanoTime();
+            return hotel;
+        }
+
+        synchronized void release() {
+            pins--;
+            lastUsed = System.nanoTime();
+        }
+
+        boolean isLoaded() {
+            return hotel != null;
+        }
+
+        long lastUsed() {
+            return lastUsed;
+        }
+
+        /**
+         * Unsynchronized check of what {@link #evictIfUnused} will confirm.
+         */
+        boolean looksUnused() {
+            Hotel h = hotel;
+            return h != null && pins == 0 && !h.hasHolds();
+        }
+
+        /**
+         * Unload if not in use and last used before the given {@link System#nanoTime()}.
+         */
+        synchronized boolean evictIfIdleSince(long idleBefore) {
+            return lastUsed - idleBefore < 0 && evictIfUnused();
+        }
+
+        /**
+         * Unload if loaded, unpinned and without holds.
+         */
+        synchronized boolean evictIfUnused() {
+            if (hotel == null || pins > 0 || hotel.hasHolds()) return false;
+            unload();
+            return true;
+        }
+
+        synchronized void unload() {
+            if (hotel == null) return;
+            if (hotel.hasUnsavedChanges()) { // a shard that was only read has nothing to write
+                hotel.saveRooms();
+                hotel.saveBookings();
+            }
+            hotel.close();
+            hotel = null;
+        }
+    }
+}
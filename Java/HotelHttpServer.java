@@ -0,0 +1,283 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import model.*;
+import util.PaymentService;
+import util.PaymentSimulator;
+import util.ThreadPools;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * JSON-over-HTTP API on a shared {@link Hotel}, for web and kiosk channels.
+ *
+ * <pre>
+ *   GET    /rooms/search?checkIn=&amp;checkOut=[&amp;category=]
+ *   POST   /bookings        roomId, guest, checkIn, checkOut[, paid]
+ *   GET    /bookings/{id}
+ *   DELETE /bookings/{id}
+ *   POST   /holds           roomId, guest, checkIn, checkOut[, ttlSeconds]
+ *   POST   /holds/{id}/pay  cardHolder, cardNumber, expiry, cvv  -> pays, then confirms the hold (409 while already being paid)
+ *   DELETE /holds/{id}       (409 while being paid)
+ *   GET    /reports?from=&amp;to=[&amp;category=][&amp;by=day|month|category]
+ * </pre>
+ * Stays outside {@link Hotel#checkStay}'s bounds get 400 and {@code ttlSeconds} is
+ * capped at {@link Hotel#MAX_HOLD_TTL}.
+ * Parameters come from the query string or a form-encoded body. Each request runs
+ * on its own (virtual, where available) thread; connections are HTTP/1.1
+ * keep-alive, so clients can reuse them for many requests.
+ *
+ * Headless: {@code java -cp out server.HotelHttpServer [port] [dataDir]}.
+ */
+public class HotelHttpServer {
+
+    private static final Duration DEFAULT_HOLD_TTL = Duration.ofMinutes(10);
+
+    static {
+        // responses are small; without TCP_NODELAY Nagle's algorithm delays them on kept-alive connections
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final Hotel hotel;
+    private final PaymentService payments;
+    private final HttpServer server;
+    private final ExecutorService executor = ThreadPools.newPerTaskExecutor("http");
+
+    public HotelHttpServer(Hotel hotel, PaymentService payments, int port) throws IOException {
+        this.hotel = hotel;
+        this.payments = payments;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/rooms/search", safe(this::search));
+        server.createContext("/bookings", safe(this::bookings));
+        server.createContext("/holds", safe(this::holds));
+        server.createContext("/reports", safe(this::reports));
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // --- Handlers ---
+
+    private void search(HttpExchange ex) throws IOException {
+        if (!"GET".equals(ex.getRequestMethod())) { send(ex, 405, Json.error("Use GET")); return; }
+        Map<String, String> p = params(ex);
+        LocalDate in = date(p, "checkIn"), out = date(p, "checkOut");
+        if (in == null || out == null || !in.isBefore(out)) { send(ex, 400, Json.error("checkIn/checkOut required, YYYY-MM-DD, checkOut after checkIn")); return; }
+        Room.Category category;
+        try {
+            category = p.get("category") == null ? null : Room.Category.valueOf(p.get("category").toUpperCase());
+        } catch (IllegalArgumentException e) { send(ex, 400, Json.error("Unknown category")); return; }
+        send(ex, 200, Json.array(hotel.searchAvailable(in, out, category), r -> Json.room(r, hotel.quote(r, in, out))));
+    }
+
+    private void bookings(HttpExchange ex) throws IOException {
+        String id = subPath(ex, "/bookings");
+        String method = ex.getRequestMethod();
+        if (id.isEmpty() && "POST".equals(method)) {
+            Map<String, String> p = params(ex);
+            LocalDate in = date(p, "checkIn"), out = date(p, "checkOut");
+            if (p.get("roomId") == null || blank(p.get("guest")) || in == null || out == null || !in.isBefore(out)) {
+                send(ex, 400, Json.error("roomId, guest, checkIn and checkOut required; checkOut after checkIn"));
+                return;
+            }
+            String problem = Hotel.checkStay(in, out);
+            if (problem != null) { send(ex, 400, Json.error(problem)); return; }
+            Booking b = hotel.createBooking(p.get("roomId"), p.get("guest").trim(), in, out, Boolean.parseBoolean(p.get("paid")));
+            if (b == null) send(ex, 409, Json.error("Room not available for selected dates"));
+            else send(ex, 201, Json.booking(b));
+        } else if (!id.isEmpty() && "GET".equals(method)) {
+            Booking b = hotel.getBookingById(id);
+            if (b == null) send(ex, 404, Json.error("Booking not found"));
+            else send(ex, 200, Json.booking(b));
+        } else if (!id.isEmpty() && "DELETE".equals(method)) {
+            if (hotel.cancelBooking(id)) send(ex, 200, "{\"cancelled\":true}");
+            else send(ex, 404, Json.error("Booking not found"));
+        } else {
+            send(ex, 405, Json.error("Unsupported method"));
+        }
+    }
+
+    private void holds(HttpExchange ex) throws IOException {
+        String rest = subPath(ex, "/holds");
+        String method = ex.getRequestMethod();
+        if (rest.isEmpty() && "POST".equals(method)) {
+            Map<String, String> p = params(ex);
+            LocalDate in = date(p, "checkIn"), out = date(p, "checkOut");
+            if (p.get("roomId") == null || blank(p.get("guest")) || in == null || out == null || !in.isBefore(out)) {
+                send(ex, 400, Json.error("roomId, guest, checkIn and checkOut required; checkOut after checkIn"));
+                return;
+            }
+            String problem = Hotel.checkStay(in, out);
+            if (problem != null) { send(ex, 400, Json.error(problem)); return; }
+            Duration ttl = p.get("ttlSeconds") == null ? DEFAULT_HOLD_TTL : Duration.ofSeconds(Long.parseLong(p.get("ttlSeconds")));
+            if (ttl.isNegative() || ttl.isZero()) { send(ex, 400, Json.error("ttlSeconds must be positive")); return; }
+            if (ttl.compareTo(Hotel.MAX_HOLD_TTL) > 0) ttl = Hotel.MAX_HOLD_TTL;
+            RoomHold h = hotel.placeHold(p.get("roomId"), p.get("guest").trim(), in, out, ttl);
+            if (h == null) send(ex, 409, Json.error("Room not available for selected dates"));
+            else send(ex, 201, Json.hold(h));
+        } else if (rest.endsWith("/pay") && "POST".equals(method)) {
+            pay(ex, rest.substring(0, rest.length() - "/pay".length()));
+        } else if (!rest.isEmpty() && "DELETE".equals(method)) {
+            RoomHold h = hotel.getHoldById(rest);
+            if (hotel.releaseHold(rest)) send(ex, 200, "{\"released\":true}");
+            else if (h != null && h.isPaymentInFlight()) send(ex, 409, Json.error("Payment in progress for this hold"));
+            else send(ex, 404, Json.error("Hold not found"));
+        } else {
+            send(ex, 405, Json.error("Unsupported method"));
+        }
+    }
+
+    /**
+     * Take payment for a hold and confirm it. The request thread waits for the
+     * payment; it holds no inventory lock meanwhile. The hold is claimed first, so
+     * a second payer for the same hold gets 409 instead of charging the card again.
+     */
+    private void pay(HttpExchange ex, String holdId) throws IOException {
+        RoomHold h = hotel.getHoldById(holdId);
+        if (h == null || h.isExpired()) { send(ex, 404, Json.error("Hold not found or expired")); return; }
+        if (hotel.claimHoldForPayment(holdId, payments.maxDuration()) != h) { send(ex, 409, Json.error("Payment already in progress for this hold")); return; }
+        Booking b = null;
+        try {
+            Map<String, String> p = params(ex);
+            PaymentSimulator.PaymentResult pr = payments.processAsync(p.get("cardHolder"), p.get("cardNumber"), p.get("expiry"), p.get("cvv"), h.getAmount()).join();
+            if (!pr.success) { send(ex, 402, Json.error(pr.message)); return; }
+            b = hotel.confirmHold(holdId, true);
+        } finally {
+            if (b == null) hotel.releasePaymentClaim(h);
+        }
+        if (b == null) send(ex, 410, Json.error("Hold expired before payment completed; payment needs a refund"));
+        else send(ex, 201, Json.booking(b));
+    }
+
+    /**
+     * Occupancy, ADR and RevPAR over [from, to) per day (default), month or category.
+     */
+    private void reports(HttpExchange ex) throws IOException {
+        if (!"GET".equals(ex.getRequestMethod())) { send(ex, 405, Json.error("Use GET")); return; }
+        Map<String, String> p = params(ex);
+        LocalDate from = date(p, "from"), to = date(p, "to");
+        if (from == null || to == null || !from.isBefore(to)) { send(ex, 400, Json.error("from/to required, YYYY-MM-DD, to after from")); return; }
+        Room.Category category;
+        try {
+            category = p.get("category") == null ? null : Room.Category.valueOf(p.get("category").toUpperCase());
+        } catch (IllegalArgumentException e) { send(ex, 400, Json.error("Unknown category")); return; }
+        ReportingEngine reports = hotel.getReports();
+        String by = p.getOrDefault("by", "day");
+        List<ReportRow> rows;
+        if ("day".equals(by)) rows = reports.daily(from, to, category);
+        else if ("month".equals(by)) rows = reports.monthly(YearMonth.from(from), YearMonth.from(to.minusDays(1)), category);
+        else if ("category".equals(by)) rows = new ArrayList<>(reports.byCategory(from, to).values());
+        else { send(ex, 400, Json.error("by must be day, month or category")); return; }
+        send(ex, 200, Json.array(rows, Json::reportRow));
+    }
+
+    // --- Helpers ---
+
+    /**
+     * Answer unexpected errors with a JSON 500 (or 400 for malformed numbers and rejected arguments) instead of dropping the connection.
+     */
+    private static HttpHandler safe(HttpHandler h) {
+        return ex -> {
+            try {
+                h.handle(ex);
+            } catch (NumberFormatException e) {
+                send(ex, 400, Json.error("Malformed number: " + e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                send(ex, 400, Json.error(String.valueOf(e.getMessage())));
+            } catch (RuntimeException e) {
+                send(ex, 500, Json.error(String.valueOf(e.getMessage())));
+            } finally {
+                ex.close();
+            }
+        };
+    }
+
+    private static String subPath(HttpExchange ex, String context) {
+        String path = ex.getRequestURI().getPath().substring(context.length());
+        while (path.startsWith("/")) path = path.substring(1);
+        return path;
+    }
+
+    private static Map<String, String> params(HttpExchange ex) throws IOException {
+        Map<String, String> p = new HashMap<>();
+        parse(ex.getRequestURI().getRawQuery(), p);
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            if (body.length > 0) parse(new String(body, StandardCharsets.UTF_8), p);
+        }
+        return p;
+    }
+
+    private static void parse(String query, Map<String, String> into) {
+        if (query == null || query.isEmpty()) return;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            into.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static LocalDate date(Map<String, String> p, String key) {
+        try {
+            return p.get(key) == null ? null : LocalDate.parse(p.get(key));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean blank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length); // fixed length keeps the connection reusable
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Hotel hotel = args.length > 1 ? new Hotel(new File(args[1])) : new Hotel();
+        hotel.load();
+        Integer keepMonths = Integer.getInteger("hotel.archive.keepMonths");
+        if (keepMonths != null) hotel.scheduleArchival(keepMonths);
+        PaymentService payments = new PaymentService();
+        HotelHttpServer server = new HotelHttpServer(hotel, payments, port);
+        server.start();
+        System.out.println("Hotel API listening on port " + server.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            payments.close();
+            hotel.saveRooms();
+            hotel.saveBookings();
+        }));
+    }
+}
@@ -1,23 +1,33 @@
 package ui;
 
 import model.*;
-import util.PaymentSimulator;
+import server.HotelHttpServer;
+import util.PaymentService;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Main GUI for hotel reservation system.
  */
 public class HotelReservationUI extends JFrame {
+    private static final long serialVersionUID = 1L;
 
     private final Hotel hotel;
+    private final PaymentService payments = new PaymentService();
+    private static final Duration PAYMENT_HOLD_TTL = Duration.ofMinutes(10);
     private final DateTimeFormatter df = DateTimeFormatter.ISO_LOCAL_DATE;
 
     // UI components
@@ -28,7 +38,9 @@ public class HotelReservationUI extends JFrame {
     private DefaultTableModel resultsModel;
 
     private JTable bookingsTable;
-    private DefaultTableModel bookingsModel;
+    private BookingsTableModel bookingsModel;
+    private JLabel pageLabel;
+    private static final int BOOKINGS_PAGE_SIZE = 500;
 
     public HotelReservationUI(Hotel hotel) {
         this.hotel = hotel;
@@ -57,6 +69,8 @@ public class HotelReservationUI extends JFrame {
         top.add(searchBtn);
         JButton refreshBtn = new JButton("Refresh Bookings");
         top.add(refreshBtn);
+        JButton reportsBtn = new JButton("Reports");
+        top.add(reportsBtn);
 
         root.add(top, BorderLayout.NORTH);
 
@@ -66,7 +80,7 @@ public class HotelReservationUI extends JFrame {
 
         // Left: search results and booking form
         JPanel left = new JPanel(new BorderLayout(6,6));
-        resultsModel = new DefaultTableModel(new String[]{"Room ID","Category","Price/Nt","Description"}, 0) {
+        resultsModel = new DefaultTableModel(new String[]{"Room ID","Category","Price/Nt","Total","Description"}, 0) {
             public boolean isCellEditable(int r, int c){ return false; }
         };
         resultsTable = new JTable(resultsModel);
@@ -86,12 +100,30 @@ public class HotelReservationUI extends JFrame {
 
         // Right: bookings list and cancel
         JPanel right = new JPanel(new BorderLayout(6,6));
-        bookingsModel = new DefaultTableModel(new String[]{"BookingID","RoomID","Guest","CheckIn","CheckOut","Amount","Paid"},0) {
-            public boolean isCellEditable(int r, int c){ return false; }
-        };
+        bookingsModel = new BookingsTableModel(hotel, BOOKINGS_PAGE_SIZE);
         bookingsTable = new JTable(bookingsModel);
         right.add(new JScrollPane(bookingsTable), BorderLayout.CENTER);
 
+        // filter by stay dates and page through the bookings
+        JPanel bookingsNav = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField fromField = new JTextField(8);
+        JTextField toField = new JTextField(8);
+        JButton filterBtn = new JButton("Filter");
+        JButton prevBtn = new JButton("< Prev");
+        JButton nextBtn = new JButton("Next >");
+        pageLabel = new JLabel();
+        bookingsNav.add(new JLabel("From:"));
+        bookingsNav.add(fromField);
+        bookingsNav.add(new JLabel("To:"));
+        bookingsNav.add(toField);
+        bookingsNav.add(filterBtn);
+        bookingsNav.add(prevBtn);
+        bookingsNav.add(nextBtn);
+        bookingsNav.add(pageLabel);
+        right.add(bookingsNav, BorderLayout.NORTH);
+        bookingsModel.addTableModelListener(e -> updatePageLabel());
+        updatePageLabel();
+
         JPanel rightButtons = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton viewDetailsBtn = new JButton("View Booking Details");
         JButton cancelBtn = new JButton("Cancel Booking");
@@ -102,11 +134,20 @@ public class HotelReservationUI extends JFrame {
         split.setRightComponent(right);
         root.add(split, BorderLayout.CENTER);
 
-        // initial load
-        refreshBookingsTable();
         // action listeners
         searchBtn.addActionListener(e -> performSearch());
         refreshBtn.addActionListener(e -> refreshBookingsTable());
+        reportsBtn.addActionListener(e -> showReports(reportsBtn));
+        prevBtn.addActionListener(e -> bookingsModel.setPage(bookingsModel.getPage() - 1));
+        nextBtn.addActionListener(e -> bookingsModel.setPage(bookingsModel.getPage() + 1));
+        filterBtn.addActionListener(e -> {
+            LocalDate from, to;
+            try {
+                from = fromField.getText().trim().isEmpty() ? null : LocalDate.parse(fromField.getText().trim(), df);
+                to = toField.getText().trim().isEmpty() ? null : LocalDate.parse(toField.getText().trim(), df);
+            } catch (Exception ex) { showMessage("Invalid dates format. Use YYYY-MM-DD."); return; }
+            bookingsModel.setDateFilter(from, to);
+        });
 
         bookBtn.addActionListener(e -> {
             int row = resultsTable.getSelectedRow();
@@ -119,12 +160,18 @@ public class HotelReservationUI extends JFrame {
                 checkIn = LocalDate.parse(checkInField.getText().trim(), df);
                 checkOut = LocalDate.parse(checkOutField.getText().trim(), df);
             } catch (Exception ex) { showMessage("Invalid dates format. Use YYYY-MM-DD."); return; }
-            if (!checkIn.isBefore(checkOut)) { showMessage("Check-out must be after check-in."); return; }
+            String problem = Hotel.checkStay(checkIn, checkOut);
+            if (problem != null) { showMessage(problem + "."); return; }
 
-            // Payment dialog
-            double nights = (double)(checkOut.toEpochDay() - checkIn.toEpochDay());
-            double pricePerNight = Double.parseDouble(resultsModel.getValueAt(row,2).toString());
-            double total = nights * pricePerNight;
+            // Hold the room while the guest pays, so nobody else can take it meanwhile
+            RoomHold hold = hotel.placeHold(roomId, guest, checkIn, checkOut, PAYMENT_HOLD_TTL);
+            if (hold == null) {
+                showMessage("Room not available for selected dates (someone else booked in the meantime). Try another room/date.");
+                return;
+            }
+
+            // Payment dialog; the hold carries the price quoted when it was placed
+            double total = hold.getAmount();
 
             JPanel paymentPanel = new JPanel(new GridLayout(0,2,6,6));
             JTextField cardName = new JTextField();
@@ -138,22 +185,43 @@ public class HotelReservationUI extends JFrame {
             paymentPanel.add(new JLabel("CVV:")); paymentPanel.add(cvv);
 
             int opt = JOptionPane.showConfirmDialog(this, paymentPanel, "Enter payment details", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-            if (opt != JOptionPane.OK_OPTION) return;
+            if (opt != JOptionPane.OK_OPTION) { hotel.releaseHold(hold.getHoldId()); return; }
 
-            PaymentSimulator.PaymentResult pr = PaymentSimulator.process(cardName.getText(), cardNumber.getText(), expiry.getText(), cvv.getText(), total);
-            if (!pr.success) {
-                showMessage("Payment failed: " + pr.message);
+            // claim the hold so it cannot lapse while the card is charged
+            if (hotel.claimHoldForPayment(hold.getHoldId(), payments.maxDuration()) == null) {
+                showMessage("The hold on this room expired. Please search and book again.");
                 return;
             }
 
-            Booking booking = hotel.createBooking(roomId, guest, checkIn, checkOut, true);
-            if (booking == null) {
-                showMessage("Room not available for selected dates (someone else booked in the meantime). Try another room/date.");
-                refreshBookingsTable();
-            } else {
-                showMessage("Booking successful! ID: " + booking.getBookingId() + "\n" + pr.message);
-                refreshBookingsTable();
-            }
+            // pay and book off the EDT; results come back via invokeLater
+            bookBtn.setEnabled(false);
+            payments.processAsync(cardName.getText(), cardNumber.getText(), expiry.getText(), cvv.getText(), total)
+                    .thenAccept(pr -> {
+                        Booking booking = pr.success ? hotel.confirmHold(hold.getHoldId(), true) : null;
+                        if (!pr.success) {
+                            hotel.releasePaymentClaim(hold);
+                            hotel.releaseHold(hold.getHoldId());
+                        }
+                        SwingUtilities.invokeLater(() -> {
+                            bookBtn.setEnabled(true);
+                            if (!pr.success) {
+                                showMessage("Payment failed: " + pr.message);
+                            } else if (booking == null) {
+                                showMessage("The hold on this room expired before payment completed. Payment reference: " + pr.message);
+                            } else {
+                                showMessage("Booking successful! ID: " + booking.getBookingId() + "\n" + pr.message);
+                            }
+                        });
+                    })
+                    .exceptionally(ex -> {
+                        hotel.releasePaymentClaim(hold);
+                        hotel.releaseHold(hold.getHoldId());
+                        SwingUtilities.invokeLater(() -> {
+                            bookBtn.setEnabled(true);
+                            showMessage("Booking failed: " + ex.getMessage());
+                        });
+                        return null;
+                    });
         });
 
         // Hold booking (no payment)
@@ -168,14 +236,14 @@ public class HotelReservationUI extends JFrame {
                 checkIn = LocalDate.parse(checkInField.getText().trim(), df);
                 checkOut = LocalDate.parse(checkOutField.getText().trim(), df);
             } catch (Exception ex) { showMessage("Invalid dates format. Use YYYY-MM-DD."); return; }
-            if (!checkIn.isBefore(checkOut)) { showMessage("Check-out must be after check-in."); return; }
+            String problem = Hotel.checkStay(checkIn, checkOut);
+            if (problem != null) { showMessage(problem + "."); return; }
 
             Booking booking = hotel.createBooking(roomId, guest, checkIn, checkOut, false);
             if (booking == null) {
                 showMessage("Room not available for selected dates.");
             } else {
                 showMessage("Booking held successfully (not paid). ID: " + booking.getBookingId());
-                refreshBookingsTable();
             }
         });
 
@@ -183,7 +251,7 @@ public class HotelReservationUI extends JFrame {
         viewDetailsBtn.addActionListener(e -> {
             int r = bookingsTable.getSelectedRow();
             if (r < 0) { showMessage("Select a booking."); return; }
-            String bid = (String) bookingsModel.getValueAt(r, 0);
+            String bid = bookingsModel.getBookingAt(r).getBookingId();
             Booking b = hotel.getBookingById(bid);
             if (b == null) { showMessage("Booking not found."); refreshBookingsTable(); return; }
             Room room = hotel.getRoomById(b.getRoomId());
@@ -200,13 +268,12 @@ public class HotelReservationUI extends JFrame {
         cancelBtn.addActionListener(e -> {
             int r = bookingsTable.getSelectedRow();
             if (r < 0) { showMessage("Select a booking to cancel."); return; }
-            String bid = (String) bookingsModel.getValueAt(r, 0);
+            String bid = bookingsModel.getBookingAt(r).getBookingId();
             int confirm = JOptionPane.showConfirmDialog(this, "Cancel booking " + bid + " ? This will free the room for those dates.", "Confirm cancel", JOptionPane.YES_NO_OPTION);
             if (confirm != JOptionPane.YES_OPTION) return;
             boolean ok = hotel.cancelBooking(bid);
             if (ok) {
                 showMessage("Booking canceled.");
-                refreshBookingsTable();
             } else {
                 showMessage("Failed to cancel booking (maybe already removed).");
             }
@@ -238,15 +305,56 @@ public class HotelReservationUI extends JFrame {
             return;
         }
         for (Room r : avail) {
-            resultsModel.addRow(new Object[]{r.getId(), r.getCategory().toString(), r.getPricePerNight(), r.getDescription()});
+            resultsModel.addRow(new Object[]{r.getId(), r.getCategory().toString(), r.getPricePerNight(), hotel.quote(r, checkIn, checkOut), r.getDescription()});
         }
     }
 
+    // The bookings table follows booking changes on its own; this re-reads everything.
     private void refreshBookingsTable() {
-        bookingsModel.setRowCount(0);
-        for (Booking b : hotel.getAllBookings()) {
-            bookingsModel.addRow(new Object[]{b.getBookingId(), b.getRoomId(), b.getGuestName(), b.getCheckIn().toString(), b.getCheckOut().toString(), String.format("₹%.2f", b.getAmount()), b.isPaid()});
+        bookingsModel.reload();
+    }
+
+    private void updatePageLabel() {
+        pageLabel.setText(String.format("Page %d/%d (%d bookings)", bookingsModel.getPage() + 1, bookingsModel.getPageCount(), bookingsModel.getMatchingCount()));
+    }
+
+    // Occupancy, ADR and RevPAR per month of the current year, then per category
+    private void showReports(JButton reportsBtn) {
+        YearMonth first = Year.now().atMonth(1);
+        // a report may first load older months from disk, so build it off the EDT
+        reportsBtn.setEnabled(false);
+        new SwingWorker<List<ReportRow>, Void>() {
+            @Override
+            protected List<ReportRow> doInBackground() {
+                List<ReportRow> rows = new ArrayList<>(hotel.getReports().monthly(first, first.plusMonths(11), null));
+                rows.addAll(hotel.getReports().byCategory(first.atDay(1), first.plusYears(1).atDay(1)).values());
+                return rows;
+            }
+
+            @Override
+            protected void done() {
+                reportsBtn.setEnabled(true);
+                try {
+                    showReportTable(first, get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showMessage("Failed to build reports: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void showReportTable(YearMonth first, List<ReportRow> rows) {
+        DefaultTableModel model = new DefaultTableModel(new String[]{"Period","Occupancy %","ADR","RevPAR","Revenue"}, 0) {
+            public boolean isCellEditable(int r, int c){ return false; }
+        };
+        for (ReportRow r : rows) {
+            model.addRow(new Object[]{r.getLabel(), String.format("%.1f", r.getOccupancy() * 100),
+                    String.format("%.2f", r.getAdr()), String.format("%.2f", r.getRevPar()), String.format("%.2f", r.getRevenue())});
         }
+        JScrollPane pane = new JScrollPane(new JTable(model));
+        pane.setPreferredSize(new Dimension(560, 300));
+        JOptionPane.showMessageDialog(this, pane, "Reports " + first.getYear(), JOptionPane.PLAIN_MESSAGE);
     }
 
     private void showMessage(String m) {
@@ -256,12 +364,25 @@ public class HotelReservationUI extends JFrame {
     public static void main(String[] args) {
         Hotel hotel = new Hotel();
         hotel.load();
+        // Optionally seal and unload old months daily (-Dhotel.archive.keepMonths=12)
+        Integer keepMonths = Integer.getInteger("hotel.archive.keepMonths");
+        if (keepMonths != null) hotel.scheduleArchival(keepMonths);
 
         SwingUtilities.invokeLater(() -> {
             HotelReservationUI ui = new HotelReservationUI(hotel);
             ui.setVisible(true);
         });
 
+        // Optionally serve the HTTP API on the same inventory (-Dhotel.http.port=8080)
+        Integer port = Integer.getInteger("hotel.http.port");
+        if (port != null) {
+            try {
+                new HotelHttpServer(hotel, new PaymentService(), port).start();
+            } catch (IOException e) {
+                System.err.println("Failed to start HTTP API: " + e.getMessage());
+            }
+        }
+
         // Save rooms state on shutdown (if any changes)
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             hotel.saveRooms();
@@ -0,0 +1,62 @@
+package model;
+
+/**
+ * Bloom filter over booking ids: about 10 bits and 7 probes per id, so under 1%
+ * of ids a segment does not hold get past it. Lets a lookup by id skip reading
+ * cold segments that cannot contain the id. Not thread-safe while being filled.
+ */
+final class IdFilter {
+
+    private static final int BITS_PER_ID = 10;
+    private static final int PROBES = 7;
+
+    private final long[] words;
+
+    IdFilter(int expected) {
+        this.words = new long[Math.max(1, (int) (((long) expected * BITS_PER_ID + 63) / 64))];
+    }
+
+    /**
+     * A filter read back from the words written by {@link #words()}.
+     */
+    IdFilter(long[] words) {
+        this.words = words;
+    }
+
+    void add(long idHi, long idLo) {
+        long h1 = hash(idHi, idLo), h2 = mix(h1) | 1;
+        long bits = words.length * 64L;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * False only if the id was never added.
+     */
+    boolean mightContain(long idHi, long idLo) {
+        long h1 = hash(idHi, idLo), h2 = mix(h1) | 1;
+        long bits = words.length * 64L;
+        for (int i = 0; i < PROBES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words[(int) (bit >>> 6)] & 1L << bit) == 0) return false;
+        }
+        return true;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    private static long hash(long idHi, long idLo) {
+        return mix(idHi ^ mix(idLo));
+    }
+
+    // SplitMix64 finalizer: ids from older versions need not be random
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
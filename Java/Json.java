@@ -0,0 +1,93 @@
+package server;
+
+import model.Booking;
+import model.ReportRow;
+import model.Room;
+import model.RoomHold;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Minimal JSON writer for the HTTP API's response objects.
+ */
+final class Json {
+
+    private Json() {}
+
+    static String room(Room r) {
+        return "{\"id\":" + str(r.getId())
+                + ",\"category\":" + str(r.getCategory().name())
+                + ",\"pricePerNight\":" + r.getPricePerNight()
+                + ",\"description\":" + str(r.getDescription()) + "}";
+    }
+
+    /** A search result: the room plus the price of the requested stay. */
+    static String room(Room r, double total) {
+        String room = room(r);
+        return room.substring(0, room.length() - 1) + ",\"total\":" + total + "}";
+    }
+
+    static String booking(Booking b) {
+        return "{\"bookingId\":" + str(b.getBookingId())
+                + ",\"roomId\":" + str(b.getRoomId())
+                + ",\"guestName\":" + str(b.getGuestName())
+                + ",\"checkIn\":" + str(b.getCheckIn().toString())
+                + ",\"checkOut\":" + str(b.getCheckOut().toString())
+                + ",\"amount\":" + b.getAmount()
+                + ",\"paid\":" + b.isPaid() + "}";
+    }
+
+    static String hold(RoomHold h) {
+        return "{\"holdId\":" + str(h.getHoldId())
+                + ",\"roomId\":" + str(h.getRoomId())
+                + ",\"guestName\":" + str(h.getGuestName())
+                + ",\"checkIn\":" + str(h.getCheckIn().toString())
+                + ",\"checkOut\":" + str(h.getCheckOut().toString())
+                + ",\"amount\":" + h.getAmount()
+                + ",\"expiresAt\":" + str(h.getExpiresAt().toString()) + "}";
+    }
+
+    static String reportRow(ReportRow r) {
+        return "{\"label\":" + str(r.getLabel())
+                + ",\"roomNightsSold\":" + r.getRoomNightsSold()
+                + ",\"roomNightsAvailable\":" + r.getRoomNightsAvailable()
+                + ",\"occupancy\":" + r.getOccupancy()
+                + ",\"adr\":" + r.getAdr()
+                + ",\"revPar\":" + r.getRevPar()
+                + ",\"revenue\":" + r.getRevenue() + "}";
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + str(message) + "}";
+    }
+
+    static <T> String array(Collection<T> items, Function<T, String> element) {
+        StringBuilder sb = new StringBuilder(items.size() * 96 + 2).append('[');
+        for (Iterator<T> it = items.iterator(); it.hasNext(); ) {
+            sb.append(element.apply(it.next()));
+            if (it.hasNext()) sb.append(',');
+        }
+        return sb.append(']').toString();
+    }
+
+    static String str(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
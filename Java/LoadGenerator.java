@@ -0,0 +1,99 @@
+package server;
+
+import util.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator for {@link HotelHttpServer}. Each worker sends
+ * requests back to back over a kept-alive connection: mostly searches, plus a
+ * share of hold-then-release and book-then-cancel flows so writes contend too.
+ * Prints requests per second, status counts and latency percentiles.
+ *
+ * {@code java -cp out server.LoadGenerator [baseUrl] [concurrency] [seconds] [writePercent]}
+ */
+public class LoadGenerator {
+
+    private static final Pattern ID = Pattern.compile("\"(?:holdId|bookingId)\":\"([^\"]+)\"");
+    private static final String[] ROOMS = {"R001", "R002", "R003", "R004", "R005"};
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int writePercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        LatencyHistogram latency = new LatencyHistogram();
+        ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            futures.add(workers.submit(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    LocalDate in = LocalDate.now().plusDays(r.nextInt(365));
+                    String dates = "checkIn=" + in + "&checkOut=" + in.plusDays(1 + r.nextInt(4));
+                    if (r.nextInt(100) >= writePercent) {
+                        call(client, latency, statuses, "GET", base + "/rooms/search?" + dates, null);
+                    } else {
+                        boolean hold = r.nextBoolean();
+                        String form = "roomId=" + ROOMS[r.nextInt(ROOMS.length)] + "&guest=load&" + dates;
+                        String body = call(client, latency, statuses, "POST", base + (hold ? "/holds" : "/bookings"), form);
+                        Matcher m = body == null ? null : ID.matcher(body);
+                        if (m != null && m.find()) {
+                            call(client, latency, statuses, "DELETE", base + (hold ? "/holds/" : "/bookings/") + m.group(1), null);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        double elapsed = (System.nanoTime() - t0) / 1e9;
+        workers.shutdown();
+
+        System.out.printf("%d requests in %.1fs with %d workers: %.0f req/s%n", latency.getCount(), elapsed, concurrency, latency.getCount() / elapsed);
+        System.out.printf("latency ms  p50=%.2f  p90=%.2f  p99=%.2f  p99.9=%.2f  max=%.2f%n",
+                latency.getPercentile(50) / 1e6, latency.getPercentile(90) / 1e6, latency.getPercentile(99) / 1e6,
+                latency.getPercentile(99.9) / 1e6, latency.getMax() / 1e6);
+        System.out.println("status counts: " + new TreeMap<>(statuses));
+        System.exit(0);
+    }
+
+    private static String call(HttpClient client, LatencyHistogram latency, ConcurrentHashMap<Integer, LongAdder> statuses,
+                               String method, String url, String form) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30));
+        if (form != null) b.header("Content-Type", "application/x-www-form-urlencoded");
+        b.method(method, form == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(form));
+        long t = System.nanoTime();
+        try {
+            HttpResponse<String> resp = client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+            latency.record(System.nanoTime() - t);
+            statuses.computeIfAbsent(resp.statusCode(), k -> new LongAdder()).increment();
+            return resp.body();
+        } catch (Exception e) {
+            statuses.computeIfAbsent(-1, k -> new LongAdder()).increment();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package util;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operation timers and counters for the hot paths.
+ *
+ * Off unless the JVM is started with {@code -Dhotel.metrics=true}. The switch is
+ * a static final, so when it is off {@link Timer#start()} and friends reduce to a
+ * constant check the JIT folds away. When on, every timer and counter is exported
+ * as a JMX MBean under {@code hotel:*}, and {@code -Dhotel.metrics.dumpSeconds=N}
+ * also prints {@link #report()} to stderr every N seconds.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("hotel.metrics");
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+
+    // Hotel operations
+    public static final Timer SEARCH = timer("hotel.searchAvailable");
+    public static final Timer CREATE_BOOKING = timer("hotel.createBooking");
+    public static final Timer CANCEL_BOOKING = timer("hotel.cancelBooking");
+    public static final Timer ROOM_LOCK_WAIT = timer("hotel.roomLockWait");
+    public static final Timer CHECKPOINT_LOCK_WAIT = timer("hotel.checkpointLockWait");
+    public static final Counter SEARCH_CACHE_HIT = counter("hotel.searchCacheHit");
+    public static final Counter SEARCH_CACHE_MISS = counter("hotel.searchCacheMiss");
+    // persistence
+    public static final Timer SNAPSHOT_WRITE = timer("persist.snapshotWrite");
+    public static final Timer JOURNAL_FSYNC = timer("persist.journalFsync");
+    public static final Counter JOURNAL_BYTES = counter("persist.journalBytes");
+    public static final Counter SNAPSHOT_BYTES = counter("persist.snapshotBytes");
+    // payments
+    public static final Timer PAYMENT = timer("payment.process");
+    public static final Counter PAYMENT_SUCCESS = counter("payment.success");
+    public static final Counter PAYMENT_FAILURE = counter("payment.failure");
+
+    static {
+        if (ENABLED) {
+            registerMBeans();
+            long every = Long.getLong("hotel.metrics.dumpSeconds", 0);
+            if (every > 0) {
+                ScheduledExecutorService dump = Executors.newSingleThreadScheduledExecutor(ThreadPools.daemonFactory("metrics-dump"));
+                dump.scheduleAtFixedRate(() -> System.err.print(report()), every, every, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private Metrics() {}
+
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * Text table of all timers (microseconds) and counters.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %10s %10s %10s %10s %10s %10s%n", "timer (us)", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for (Timer t : TIMERS.values()) {
+            sb.append(String.format("%-28s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", t.name, t.getCount(), t.getMeanMicros(),
+                    t.getP50Micros(), t.getP99Micros(), t.getP999Micros(), t.getMaxMicros()));
+        }
+        for (Counter c : COUNTERS.values()) {
+            sb.append(String.format("%-28s %10d%n", c.name, c.getValue()));
+        }
+        return sb.toString();
+    }
+
+    private static void registerMBeans() {
+        try {
+            javax.management.MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (Timer t : TIMERS.values()) server.registerMBean(t, new ObjectName("hotel:type=Timer,name=" + t.name));
+            for (Counter c : COUNTERS.values()) server.registerMBean(c, new ObjectName("hotel:type=Counter,name=" + c.name));
+        } catch (Exception e) {
+            System.err.println("Failed to register metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    // --- Timer ---
+
+    public interface TimerMXBean {
+        long getCount();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP99Micros();
+        double getP999Micros();
+        double getMaxMicros();
+        void reset();
+    }
+
+    public static final class Timer implements TimerMXBean {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(String name) { this.name = name; }
+
+        /** Start timestamp to pass to {@link #stop(long)}; 0 when metrics are off. */
+        public long start() {
+            return ENABLED ? System.nanoTime() : 0;
+        }
+
+        public void stop(long start) {
+            if (ENABLED) histogram.record(System.nanoTime() - start);
+        }
+
+        @Override public long getCount() { return histogram.getCount(); }
+        @Override public double getMeanMicros() { return histogram.getMean() / 1e3; }
+        @Override public double getP50Micros() { return histogram.getPercentile(50) / 1e3; }
+        @Override public double getP99Micros() { return histogram.getPercentile(99) / 1e3; }
+        @Override public double getP999Micros() { return histogram.getPercentile(99.9) / 1e3; }
+        @Override public double getMaxMicros() { return histogram.getMax() / 1e3; }
+        @Override public void reset() { histogram.reset(); }
+    }
+
+    // --- Counter ---
+
+    public interface CounterMXBean {
+        long getValue();
+    }
+
+    public static final class Counter implements CounterMXBean {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) { this.name = name; }
+
+        public void add(long n) {
+            if (ENABLED) value.add(n);
+        }
+
+        public void increment() {
+            if (ENABLED) value.increment();
+        }
+
+        @Override public long getValue() { return value.sum(); }
+    }
+}
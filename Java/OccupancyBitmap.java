@@ -0,0 +1,131 @@
+package model;
+
+/**
+ * One bit per epoch-day, set when the room is occupied that night.
+ *
+ * Range queries work a 64-day word at a time with masks, popcounts and
+ * trailing-zero counts, and never allocate. Writers must hold the owning
+ * room's lock; readers don't lock, and see every completed write because each
+ * write ends with a volatile store of {@code version} that readers load first.
+ */
+final class OccupancyBitmap {
+
+    /** Words and the word index of words[0], swapped together when the bitmap grows. */
+    private static final class Words {
+        final long base;
+        final long[] bits;
+
+        Words(long base, long[] bits) {
+            this.base = base;
+            this.bits = bits;
+        }
+    }
+
+    private Words words = new Words(0, new long[0]);
+    private volatile int version;
+
+    // --- Writes (caller holds the room lock) ---
+
+    void set(long fromDay, long toDay) {
+        if (fromDay >= toDay) return;
+        Words w = ensure(Math.floorDiv(fromDay, 64), Math.floorDiv(toDay - 1, 64));
+        for (long wi = Math.floorDiv(fromDay, 64); wi <= Math.floorDiv(toDay - 1, 64); wi++) {
+            w.bits[(int) (wi - w.base)] |= mask(wi, fromDay, toDay);
+        }
+        version++;
+    }
+
+    void clear(long fromDay, long toDay) {
+        if (fromDay >= toDay) return;
+        Words w = words;
+        for (long wi = Math.floorDiv(fromDay, 64); wi <= Math.floorDiv(toDay - 1, 64); wi++) {
+            int i = (int) (wi - w.base);
+            if (i >= 0 && i < w.bits.length) w.bits[i] &= ~mask(wi, fromDay, toDay);
+        }
+        version++;
+    }
+
+    // --- Reads (lock-free) ---
+
+    /**
+     * True if no night in [fromDay, toDay) is occupied.
+     */
+    boolean isClear(long fromDay, long toDay) {
+        if (version < 0) return false; // volatile read publishes earlier writes
+        Words w = words;
+        for (long wi = Math.floorDiv(fromDay, 64); wi <= Math.floorDiv(toDay - 1, 64); wi++) {
+            if ((word(w, wi) & mask(wi, fromDay, toDay)) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Number of occupied nights in [fromDay, toDay).
+     */
+    int countSet(long fromDay, long toDay) {
+        if (version < 0 || fromDay >= toDay) return 0;
+        Words w = words;
+        int n = 0;
+        for (long wi = Math.floorDiv(fromDay, 64); wi <= Math.floorDiv(toDay - 1, 64); wi++) {
+            n += Long.bitCount(word(w, wi) & mask(wi, fromDay, toDay));
+        }
+        return n;
+    }
+
+    /**
+     * True if [fromDay, toDay) contains at least {@code length} consecutive free nights.
+     */
+    boolean hasClearRun(long fromDay, long toDay, int length) {
+        if (version < 0 || fromDay >= toDay) return false;
+        if (length <= 0) return true;
+        Words w = words;
+        int run = 0;
+        for (long wi = Math.floorDiv(fromDay, 64); wi <= Math.floorDiv(toDay - 1, 64); wi++) {
+            int pos = wi == Math.floorDiv(fromDay, 64) ? Math.floorMod(fromDay, 64) : 0;
+            int end = wi == Math.floorDiv(toDay - 1, 64) ? Math.floorMod(toDay - 1, 64) + 1 : 64;
+            long bits = word(w, wi);
+            while (pos < end) {
+                long rest = bits >>> pos; // pos < 64 here
+                int free = rest == 0 ? end - pos : Math.min(Long.numberOfTrailingZeros(rest), end - pos);
+                run += free;
+                if (run >= length) return true;
+                pos += free;
+                if (pos < end) { run = 0; pos++; } // skip the occupied night
+            }
+        }
+        return false;
+    }
+
+    // --- Helpers ---
+
+    private static long word(Words w, long wi) {
+        long i = wi - w.base;
+        return i >= 0 && i < w.bits.length ? w.bits[(int) i] : 0L;
+    }
+
+    /**
+     * Bits of word {@code wi} that fall inside [fromDay, toDay).
+     */
+    private static long mask(long wi, long fromDay, long toDay) {
+        long first = wi * 64;
+        int lo = (int) Math.max(0, fromDay - first);
+        int hi = (int) Math.min(64, toDay - first); // exclusive, > lo
+        long upper = hi == 64 ? -1L : (1L << hi) - 1;
+        return upper & (-1L << lo);
+    }
+
+    /**
+     * Grow the word array so it covers word indexes [fromWord, toWord].
+     */
+    private Words ensure(long fromWord, long toWord) {
+        Words w = words;
+        long lo = w.bits.length == 0 ? fromWord : Math.min(w.base, fromWord);
+        long hi = w.bits.length == 0 ? toWord : Math.max(w.base + w.bits.length - 1, toWord);
+        if (w.bits.length > 0 && lo == w.base && hi == w.base + w.bits.length - 1) return w;
+        hi += (hi - lo) / 4 + 1; // bookings mostly arrive in date order, leave room to grow forward
+        long[] bits = new long[(int) (hi - lo + 1)];
+        if (w.bits.length > 0) System.arraycopy(w.bits, 0, bits, (int) (w.base - lo), w.bits.length);
+        words = new Words(lo, bits);
+        return words;
+    }
+}
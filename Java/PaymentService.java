@@ -0,0 +1,97 @@
+package util;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Asynchronous front for {@link PaymentSimulator}: payments run off the caller's
+ * thread with a cap on how many are in flight, a per-attempt timeout (on both the
+ * wait for a slot and the gateway call), and retry with exponential backoff for
+ * transient gateway errors, so every payment finishes within {@link #maxDuration()}.
+ */
+public class PaymentService implements AutoCloseable {
+
+    private final ExecutorService executor = ThreadPools.newPerTaskExecutor("payment");
+    private final Semaphore inFlight;
+    private final Duration timeout;
+    private final int maxRetries;
+    private final Duration backoff;
+
+    public PaymentService() {
+        this(64, Duration.ofSeconds(10), 2, Duration.ofMillis(200));
+    }
+
+    /**
+     * @param maxConcurrent payments allowed in flight at once; others wait for a slot
+     * @param timeout       limit per attempt; a timed-out payment is not retried since its outcome is unknown
+     * @param maxRetries    retries after a retryable failure
+     * @param backoff       delay before the first retry, doubled for each further one
+     */
+    public PaymentService(int maxConcurrent, Duration timeout, int maxRetries, Duration backoff) {
+        this.inFlight = new Semaphore(maxConcurrent, true);
+        this.timeout = timeout;
+        this.maxRetries = maxRetries;
+        this.backoff = backoff;
+    }
+
+    public CompletableFuture<PaymentSimulator.PaymentResult> processAsync(String cardHolder, String cardNumber, String expiry, String cvv, double amount) {
+        return attempt(cardHolder, cardNumber, expiry, cvv, amount, 0);
+    }
+
+    /**
+     * Longest a {@link #processAsync} call can take: every attempt waiting its full
+     * timeout for a slot and then for the gateway, plus the longest backoffs.
+     */
+    public Duration maxDuration() {
+        long ms = (maxRetries + 1) * 2 * timeout.toMillis();
+        for (int retry = 0; retry < maxRetries; retry++) {
+            long delay = backoff.toMillis() << retry;
+            ms += delay + delay / 2 + 1;
+        }
+        return Duration.ofMillis(ms);
+    }
+
+    private CompletableFuture<PaymentSimulator.PaymentResult> attempt(String cardHolder, String cardNumber, String expiry, String cvv, double amount, int retry) {
+        CompletableFuture<PaymentSimulator.PaymentResult> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                if (!inFlight.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) { // nothing charged yet, safe to retry
+                    result.complete(new PaymentSimulator.PaymentResult(false, "Payment service busy. Try again.", true));
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.complete(new PaymentSimulator.PaymentResult(false, "Payment interrupted"));
+                return;
+            }
+            try {
+                result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS); // time the gateway call, not the wait for a slot
+                result.complete(PaymentSimulator.process(cardHolder, cardNumber, expiry, cvv, amount));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                inFlight.release();
+            }
+        });
+        return result
+                .exceptionally(PaymentService::failure)
+                .thenCompose(r -> {
+                    if (r.success || !r.retryable || retry >= maxRetries) return CompletableFuture.completedFuture(r);
+                    long delay = backoff.toMillis() << retry;
+                    Executor later = CompletableFuture.delayedExecutor(delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1), TimeUnit.MILLISECONDS, executor);
+                    return CompletableFuture.supplyAsync(() -> null, later)
+                            .thenCompose(x -> attempt(cardHolder, cardNumber, expiry, cvv, amount, retry + 1));
+                });
+    }
+
+    private static PaymentSimulator.PaymentResult failure(Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        if (cause instanceof TimeoutException) return new PaymentSimulator.PaymentResult(false, "Payment timed out. Check with the bank before retrying.");
+        return new PaymentSimulator.PaymentResult(false, "Payment error: " + cause.getMessage());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
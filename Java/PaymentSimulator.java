@@ -1,5 +1,7 @@
 package util;
 
+import java.util.Random;
+
 /**
  * Very simple payment simulator: validates basic fields and returns success/failure.
  * This is not real payment processing.
@@ -9,21 +11,74 @@ public class PaymentSimulator {
     public static class PaymentResult {
         public final boolean success;
         public final String message;
-        public PaymentResult(boolean success, String message) { this.success = success; this.message = message; }
+        public final boolean retryable; // transient failure, safe to try again
+        public PaymentResult(boolean success, String message) { this(success, message, false); }
+        public PaymentResult(boolean success, String message, boolean retryable) { this.success = success; this.message = message; this.retryable = retryable; }
     }
 
+    /**
+     * Simulated gateway round-trip time.
+     */
+    public interface LatencyModel {
+        long nextDelayMillis();
+
+        static LatencyModel none() { return () -> 0; }
+        static LatencyModel fixed(long millis) { return () -> millis; }
+        static LatencyModel uniform(long minMillis, long maxMillis) {
+            return () -> java.util.concurrent.ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+        }
+    }
+
+    private static volatile LatencyModel latency = LatencyModel.none();
+    private static volatile Random failures = new Random(); // decides simulated gateway errors unless the caller brings its own
+
+    public static void setLatencyModel(LatencyModel model) { latency = model; }
+
+    /**
+     * Reseed the shared source of simulated gateway errors. Threads paying at once
+     * draw from it in whatever order they get there, so only a single-threaded run
+     * replays this way; see {@link #process(String, String, String, String, double, Random)}.
+     */
+    public static void setSeed(long seed) { failures = new Random(seed); }
+
     /**
      * Simulate payment: accept if cardNumber length 12-19 digits, cvv 3-4 digits, non-empty name.
      */
     public static PaymentResult process(String cardHolder, String cardNumber, String expiry, String cvv, double amount) {
+        return process(cardHolder, cardNumber, expiry, cvv, amount, failures);
+    }
+
+    /**
+     * Same, but simulated gateway errors come from the caller's {@code failures}. A
+     * worker with its own seeded source sees the same errors on every run, however
+     * its payments interleave with other threads'.
+     */
+    public static PaymentResult process(String cardHolder, String cardNumber, String expiry, String cvv, double amount, Random failures) {
+        long t = Metrics.PAYMENT.start();
+        PaymentResult r = validateAndCharge(cardHolder, cardNumber, expiry, cvv, amount, failures);
+        Metrics.PAYMENT.stop(t);
+        (r.success ? Metrics.PAYMENT_SUCCESS : Metrics.PAYMENT_FAILURE).increment();
+        return r;
+    }
+
+    private static PaymentResult validateAndCharge(String cardHolder, String cardNumber, String expiry, String cvv, double amount, Random failures) {
         if (cardHolder == null || cardHolder.trim().isEmpty()) return new PaymentResult(false, "Card holder required");
         if (cardNumber == null || !cardNumber.matches("\\d{12,19}")) return new PaymentResult(false, "Invalid card number");
         if (cvv == null || !cvv.matches("\\d{3,4}")) return new PaymentResult(false, "Invalid CVV");
         if (expiry == null || !expiry.matches("(0[1-9]|1[0-2])/(\\d{2})")) return new PaymentResult(false, "Expiry must be MM/YY");
 
         // Very naive expiry check: accept everything — we could parse more but not necessary for simulation
+        long delay = latency.nextDelayMillis();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new PaymentResult(false, "Payment interrupted");
+            }
+        }
         // Randomly fail 5% for realism
-        if (Math.random() < 0.05) return new PaymentResult(false, "Payment gateway error (simulated). Try again.");
+        if (failures.nextDouble() < 0.05) return new PaymentResult(false, "Payment gateway error (simulated). Try again.", true);
 
         return new PaymentResult(true, "Payment successful (simulated). Amount charged: ₹" + amount);
     }
@@ -0,0 +1,373 @@
+package model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nightly rates and stay quotes for a {@link Hotel}.
+ *
+ * A night costs the room's base rate (its price per night, or a room rate set for
+ * that date) times its category's multiplier for the night: season x weekday x
+ * yield, where the yield multiplier comes from the highest occupancy threshold the
+ * category reaches that night. Rates are folded into prefix sums over a window of
+ * epoch days, one per category and one per room with its own rates, so a quote is
+ * two array reads. The sums are rebuilt lazily after a rule change, a room change,
+ * or a booking that moves a night across a yield threshold.
+ *
+ * Occupancy counts bookings only; holds do not move prices.
+ */
+public class PricingEngine implements BookingListener {
+
+    private static final int PADDING_DAYS = 90; // extra days built on each side of a window
+
+    private final Hotel hotel;
+    private final Map<Room.Category, CategoryRates> categories = new EnumMap<>(Room.Category.class); // guarded by this
+    private final Map<String, List<Range>> roomRates = new HashMap<>(); // roomId -> rate ranges, guarded by this
+    private final Map<String, Curve> roomCurves = new ConcurrentHashMap<>(); // one entry per room with its own rates
+
+    PricingEngine(Hotel hotel) {
+        this.hotel = hotel;
+        for (Room.Category c : Room.Category.values()) categories.put(c, new CategoryRates());
+    }
+
+    // --- Quotes ---
+
+    /**
+     * Price of staying in the room over [checkIn, checkOut), rounded to paise.
+     */
+    public double quote(Room room, LocalDate checkIn, LocalDate checkOut) {
+        return quote(room, checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    double quote(Room room, long inDay, long outDay) {
+        if (outDay <= inDay) return 0;
+        int in = (int) inDay, out = (int) outDay;
+        CategoryRates c = categories.get(room.getCategory());
+        Curve cat = c.curve;
+        if (cat == null || !cat.covers(in, out)) cat = categoryCurve(c, in, out);
+        double total;
+        Curve rc = roomCurves.isEmpty() ? null : roomCurves.get(room.getId());
+        if (rc != null) {
+            if (rc.source != cat || !rc.covers(in, out)) rc = roomCurve(room, cat, in, out);
+            total = rc.sum(in, out);
+        } else {
+            total = room.getPricePerNight() * cat.sum(in, out);
+        }
+        return Math.round(total * 100) / 100.0;
+    }
+
+    // --- Rules ---
+
+    /**
+     * Multiply the category's rates over [from, to). Later ranges win where they overlap.
+     */
+    public synchronized void setSeasonMultiplier(Room.Category category, LocalDate from, LocalDate to, double multiplier) {
+        categories.get(category).seasons.add(new Range(from, to, multiplier));
+        invalidate(category);
+    }
+
+    public synchronized void setWeekdayMultiplier(Room.Category category, DayOfWeek day, double multiplier) {
+        categories.get(category).weekday[day.getValue() - 1] = multiplier;
+        invalidate(category);
+    }
+
+    /**
+     * Multiply the category's rate on nights where at least {@code minOccupancy}
+     * (0..1) of its rooms are booked. Replaces a rule with the same threshold.
+     */
+    public synchronized void setYieldRule(Room.Category category, double minOccupancy, double multiplier) {
+        CategoryRates c = categories.get(category);
+        int i = Arrays.binarySearch(c.thresholds, minOccupancy);
+        if (i >= 0) {
+            c.multipliers[i] = multiplier;
+        } else {
+            i = -i - 1;
+            c.thresholds = insert(c.thresholds, i, minOccupancy);
+            c.multipliers = insert(c.multipliers, i, multiplier);
+        }
+        invalidate(category);
+    }
+
+    /**
+     * Use the given base rate for the room over [from, to) instead of its price per
+     * night. The category multipliers still apply. Later ranges win where they overlap.
+     */
+    public synchronized void setRoomRate(String roomId, LocalDate from, LocalDate to, double pricePerNight) {
+        roomRates.computeIfAbsent(roomId, k -> new ArrayList<>()).add(new Range(from, to, pricePerNight));
+        roomCurves.put(roomId, Curve.STALE);
+    }
+
+    /**
+     * Drop all rules; every night costs the room's price per night again.
+     */
+    public synchronized void clearRules() {
+        for (Room.Category c : Room.Category.values()) {
+            CategoryRates r = categories.get(c);
+            r.seasons.clear();
+            Arrays.fill(r.weekday, 1);
+            r.thresholds = new double[0];
+            r.multipliers = new double[0];
+            r.curve = null;
+        }
+        roomRates.clear();
+        roomCurves.clear();
+    }
+
+    /**
+     * Replace the rules with those in a properties file, one rule per line:
+     * <pre>
+     * season.SUITE.2026-12-20.2027-01-05=1.5
+     * weekday.STANDARD.SATURDAY=1.2
+     * yield.DELUXE.0.8=1.25
+     * room.R001.2026-12-24.2026-12-26=8000
+     * </pre>
+     */
+    public void loadRules(File file) {
+        Properties p = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            p.load(in);
+        } catch (IOException e) {
+            System.err.println("Failed to load pricing rules: " + e.getMessage());
+            return;
+        }
+        clearRules();
+        for (String key : p.stringPropertyNames()) {
+            try {
+                String[] k = key.split("\\.", 2);
+                double value = Double.parseDouble(p.getProperty(key).trim());
+                String[] a = k[1].split("\\.");
+                switch (k[0]) {
+                    case "season":
+                        setSeasonMultiplier(Room.Category.valueOf(a[0]), LocalDate.parse(a[1]), LocalDate.parse(a[2]), value);
+                        break;
+                    case "weekday":
+                        setWeekdayMultiplier(Room.Category.valueOf(a[0]), DayOfWeek.valueOf(a[1]), value);
+                        break;
+                    case "yield":
+                        setYieldRule(Room.Category.valueOf(k[1].substring(0, k[1].indexOf('.'))),
+                                Double.parseDouble(k[1].substring(k[1].indexOf('.') + 1)), value);
+                        break;
+                    case "room":
+                        setRoomRate(a[0], LocalDate.parse(a[1]), LocalDate.parse(a[2]), value);
+                        break;
+                    default:
+                        System.err.println("Failed to load pricing rule " + key + ": unknown rule type");
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to load pricing rule " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // --- Occupancy ---
+
+    // Hotel state is read before taking this engine's monitor: quotes run under room
+    // locks and reach the monitor, so it must never wait on a Hotel lock.
+
+    @Override
+    public void bookingCreated(Booking booking) {
+        Room r = hotel.getRoomById(booking.getRoomId());
+        if (r != null) occupancyChanged(r.getCategory(), booking, 1);
+    }
+
+    @Override
+    public void bookingCancelled(Booking booking) {
+        Room r = hotel.getRoomById(booking.getRoomId());
+        if (r != null) occupancyChanged(r.getCategory(), booking, -1);
+    }
+
+    @Override
+    public void bookingsReloaded(List<Booking> bookings) {
+        List<Room> rooms = hotel.getAllRooms();
+        Map<String, Room.Category> categoryOf = new HashMap<>();
+        for (Room r : rooms) categoryOf.put(r.getId(), r.getCategory());
+        synchronized (this) {
+            countRooms(rooms);
+            for (CategoryRates c : categories.values()) c.clearOccupancy();
+            for (Booking b : bookings) {
+                Room.Category c = categoryOf.get(b.getRoomId());
+                if (c != null) occupancyChanged(c, b, 1);
+            }
+        }
+    }
+
+    /**
+     * Recount rooms per category. Called when rooms are added or replaced.
+     */
+    void roomsChanged() {
+        countRooms(hotel.getAllRooms());
+    }
+
+    private synchronized void countRooms(List<Room> rooms) {
+        for (CategoryRates c : categories.values()) c.rooms = 0;
+        for (Room r : rooms) categories.get(r.getCategory()).rooms++;
+        for (Room.Category c : Room.Category.values()) invalidate(c);
+    }
+
+    private synchronized void occupancyChanged(Room.Category category, Booking b, int delta) {
+        CategoryRates c = categories.get(category);
+        int in = b.checkInDay(), out = b.checkOutDay();
+        c.ensureCounts(in, out);
+        boolean crossed = false;
+        for (int d = in; d < out; d++) {
+            int i = d - c.countBase;
+            int before = c.level(c.counts[i]);
+            c.counts[i] += delta;
+            crossed |= c.level(c.counts[i]) != before;
+        }
+        if (crossed) c.curve = null;
+    }
+
+    // --- Prefix sums ---
+
+    private synchronized Curve categoryCurve(CategoryRates c, int in, int out) {
+        Curve cur = c.curve;
+        if (cur != null && cur.covers(in, out)) return cur;
+        int from = in - PADDING_DAYS, to = out + PADDING_DAYS;
+        if (cur != null) {
+            from = Math.min(from, cur.base);
+            to = Math.max(to, cur.base + cur.prefix.length - 1);
+        }
+        double[] prefix = new double[to - from + 1];
+        for (int d = from; d < to; d++) prefix[d - from + 1] = prefix[d - from] + c.multiplier(d);
+        c.curve = cur = new Curve(from, prefix, null);
+        return cur;
+    }
+
+    private synchronized Curve roomCurve(Room room, Curve cat, int in, int out) {
+        CategoryRates c = categories.get(room.getCategory());
+        if (c.curve != cat || !cat.covers(in, out)) cat = categoryCurve(c, in, out);
+        Curve cur = roomCurves.get(room.getId());
+        if (cur != null && cur.source == cat && cur.covers(in, out)) return cur;
+        List<Range> ranges = roomRates.get(room.getId());
+        int from = cat.base, to = cat.base + cat.prefix.length - 1;
+        double[] prefix = new double[to - from + 1];
+        for (int d = from; d < to; d++) {
+            double base = room.getPricePerNight();
+            for (Range r : ranges) if (r.contains(d)) base = r.value;
+            prefix[d - from + 1] = prefix[d - from] + base * cat.rate(d);
+        }
+        cur = new Curve(from, prefix, cat);
+        roomCurves.put(room.getId(), cur);
+        return cur;
+    }
+
+    private void invalidate(Room.Category category) {
+        categories.get(category).curve = null;
+    }
+
+    private static double[] insert(double[] a, int at, double v) {
+        double[] copy = new double[a.length + 1];
+        System.arraycopy(a, 0, copy, 0, at);
+        copy[at] = v;
+        System.arraycopy(a, at, copy, at + 1, a.length - at);
+        return copy;
+    }
+
+    /**
+     * Running totals of nightly values over epoch days [base, base + prefix.length - 1).
+     */
+    private static final class Curve {
+        static final Curve STALE = new Curve(0, new double[1], null); // placeholder until first built
+
+        final int base;
+        final double[] prefix;
+        final Curve source; // category curve a room curve was built from
+
+        Curve(int base, double[] prefix, Curve source) {
+            this.base = base;
+            this.prefix = prefix;
+            this.source = source;
+        }
+
+        boolean covers(int in, int out) {
+            return in >= base && out <= base + prefix.length - 1;
+        }
+
+        double sum(int in, int out) {
+            return prefix[out - base] - prefix[in - base];
+        }
+
+        double rate(int day) {
+            return sum(day, day + 1);
+        }
+    }
+
+    private static final class Range {
+        final int from, to; // epoch days, to exclusive
+        final double value;
+
+        Range(LocalDate from, LocalDate to, double value) {
+            this.from = (int) from.toEpochDay();
+            this.to = (int) to.toEpochDay();
+            this.value = value;
+        }
+
+        boolean contains(int day) {
+            return day >= from && day < to;
+        }
+    }
+
+    /**
+     * Rules and booked-room counts of one category. Guarded by the engine;
+     * {@code curve} is also read without locking.
+     */
+    private static final class CategoryRates {
+        final List<Range> seasons = new ArrayList<>();
+        final double[] weekday = {1, 1, 1, 1, 1, 1, 1}; // Monday first
+        double[] thresholds = new double[0]; // ascending occupancy fractions
+        double[] multipliers = new double[0];
+        int rooms;
+        int countBase;
+        int[] counts = new int[0]; // booked rooms per night from countBase
+        volatile Curve curve;
+
+        double multiplier(int day) {
+            double m = 1;
+            for (Range r : seasons) if (r.contains(day)) m = r.value;
+            m *= weekday[Math.floorMod(day + 3, 7)]; // epoch day 0 was a Thursday
+            int i = day - countBase;
+            int level = i >= 0 && i < counts.length ? level(counts[i]) : 0;
+            return level == 0 ? m : m * multipliers[level - 1];
+        }
+
+        /**
+         * Number of yield thresholds reached with {@code booked} rooms taken.
+         */
+        int level(int booked) {
+            if (thresholds.length == 0 || rooms == 0) return 0;
+            double occupancy = (double) booked / rooms;
+            int level = 0;
+            while (level < thresholds.length && occupancy >= thresholds[level]) level++;
+            return level;
+        }
+
+        void ensureCounts(int in, int out) {
+            if (counts.length > 0 && in >= countBase && out <= countBase + counts.length) return;
+            int from = counts.length == 0 ? in - PADDING_DAYS : Math.min(countBase, in - PADDING_DAYS);
+            int to = counts.length == 0 ? out + PADDING_DAYS : Math.max(countBase + counts.length, out + PADDING_DAYS);
+            int[] grown = new int[to - from];
+            if (counts.length > 0) System.arraycopy(counts, 0, grown, countBase - from, counts.length);
+            counts = grown;
+            countBase = from;
+        }
+
+        void clearOccupancy() {
+            counts = new int[0];
+            countBase = 0;
+            curve = null;
+        }
+    }
+}
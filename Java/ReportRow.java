@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * Occupancy and revenue figures for one period (a day, a month or a whole
+ * range for one category), as produced by {@link ReportingEngine}.
+ */
+public final class ReportRow {
+
+    private final String label;
+    private final long roomNightsSold;
+    private final long roomNightsAvailable;
+    private final double revenue;
+
+    ReportRow(String label, long roomNightsSold, long roomNightsAvailable, long revenuePaise) {
+        this.label = label;
+        this.roomNightsSold = roomNightsSold;
+        this.roomNightsAvailable = roomNightsAvailable;
+        this.revenue = revenuePaise / 100.0;
+    }
+
+    /** The period or category, e.g. "2026-03-14", "2026-03" or "SUITE". */
+    public String getLabel() { return label; }
+    public long getRoomNightsSold() { return roomNightsSold; }
+    public long getRoomNightsAvailable() { return roomNightsAvailable; }
+    public double getRevenue() { return revenue; }
+
+    /** Share of available room-nights that were sold, 0..1. */
+    public double getOccupancy() {
+        return roomNightsAvailable == 0 ? 0 : (double) roomNightsSold / roomNightsAvailable;
+    }
+
+    /** Average daily rate: revenue per room-night sold. */
+    public double getAdr() {
+        return roomNightsSold == 0 ? 0 : revenue / roomNightsSold;
+    }
+
+    /** Revenue per available room-night. */
+    public double getRevPar() {
+        return roomNightsAvailable == 0 ? 0 : revenue / roomNightsAvailable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | occupancy %.1f%% | ADR ₹%.2f | RevPAR ₹%.2f | revenue ₹%.2f",
+                label, getOccupancy() * 100, getAdr(), getRevPar(), revenue);
+    }
+}
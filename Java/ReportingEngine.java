@@ -0,0 +1,334 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occupancy, ADR and RevPAR over the booking history of a {@link Hotel}.
+ *
+ * Per category it keeps room-nights sold and revenue in primitive arrays indexed by
+ * epoch day, plus the same totals per month. A booking's amount is spread evenly
+ * over its nights. The arrays are built in parallel when bookings are (re)loaded and
+ * then kept current from booking events, so a query only sums the days or months it
+ * covers. Availability uses today's room count for every past and future night.
+ * A query first loads any history still on disk that its range may cover.
+ *
+ * Only nights from {@link #HISTORY_DAYS} before today up to the booking horizon
+ * ({@link Hotel#BOOKING_HORIZON_DAYS}) are tallied, so a stay with a far-off date in
+ * old data cannot blow the arrays up; queries outside that window report nothing sold.
+ */
+public class ReportingEngine implements BookingListener {
+
+    private static final Room.Category[] CATEGORIES = Room.Category.values();
+    private static final int PADDING_DAYS = 366; // grow arrays by about a year at a time
+
+    /** Days of history before today that are tallied. */
+    public static final int HISTORY_DAYS = Integer.getInteger("hotel.report.historyDays", 3650);
+
+    private final Hotel hotel;
+
+    // all guarded by this
+    private final int[] rooms = new int[CATEGORIES.length];
+    private int dayBase; // epoch day of index 0
+    private int[][] sold = new int[CATEGORIES.length][0]; // [category][day] rooms sold
+    private long[][] revenue = new long[CATEGORIES.length][0]; // [category][day] paise
+    private int monthBase; // year * 12 + month - 1 of index 0
+    private long[][] monthSold = new long[CATEGORIES.length][0];
+    private long[][] monthRevenue = new long[CATEGORIES.length][0];
+
+    ReportingEngine(Hotel hotel) {
+        this.hotel = hotel;
+    }
+
+    // --- Queries ---
+
+    /**
+     * One row per night in [from, to), for the category or all rooms when null.
+     */
+    public List<ReportRow> daily(LocalDate from, LocalDate to, Room.Category category) {
+        hotel.loadHistoryFrom(from);
+        synchronized (this) {
+            List<ReportRow> result = new ArrayList<>();
+            int f = (int) from.toEpochDay(), t = (int) to.toEpochDay();
+            long available = roomCount(category);
+            for (int d = f; d < t; d++) {
+                long s = 0, r = 0;
+                int i = d - dayBase;
+                if (i >= 0 && i < sold[0].length) {
+                    for (int c = 0; c < CATEGORIES.length; c++) {
+                        if (category != null && c != category.ordinal()) continue;
+                        s += sold[c][i];
+                        r += revenue[c][i];
+                    }
+                }
+                result.add(new ReportRow(LocalDate.ofEpochDay(d).toString(), s, available, r));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * One row per month from {@code from} to {@code to}, both inclusive.
+     */
+    public List<ReportRow> monthly(YearMonth from, YearMonth to, Room.Category category) {
+        hotel.loadHistoryFrom(from.atDay(1));
+        synchronized (this) {
+            List<ReportRow> result = new ArrayList<>();
+            long rooms = roomCount(category);
+            for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+                long s = 0, r = 0;
+                int i = monthIndex(m) - monthBase;
+                if (i >= 0 && i < monthSold[0].length) {
+                    for (int c = 0; c < CATEGORIES.length; c++) {
+                        if (category != null && c != category.ordinal()) continue;
+                        s += monthSold[c][i];
+                        r += monthRevenue[c][i];
+                    }
+                }
+                result.add(new ReportRow(m.toString(), s, rooms * m.lengthOfMonth(), r));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Totals over [from, to) for each category.
+     */
+    public Map<Room.Category, ReportRow> byCategory(LocalDate from, LocalDate to) {
+        hotel.loadHistoryFrom(from);
+        synchronized (this) {
+            Map<Room.Category, ReportRow> result = new EnumMap<>(Room.Category.class);
+            int f = Math.max((int) from.toEpochDay(), dayBase);
+            int t = Math.min((int) to.toEpochDay(), dayBase + sold[0].length);
+            long nights = Math.max(0, to.toEpochDay() - from.toEpochDay());
+            for (Room.Category category : CATEGORIES) {
+                int c = category.ordinal();
+                long s = 0, r = 0;
+                for (int d = f; d < t; d++) {
+                    s += sold[c][d - dayBase];
+                    r += revenue[c][d - dayBase];
+                }
+                result.put(category, new ReportRow(category.name(), s, rooms[c] * nights, r));
+            }
+            return result;
+        }
+    }
+
+    // --- Updates ---
+
+    @Override
+    public synchronized void bookingCreated(Booking booking) {
+        Room r = hotel.getRoomById(booking.getRoomId());
+        if (r != null) add(booking, r.getCategory().ordinal(), 1);
+    }
+
+    @Override
+    public synchronized void bookingCancelled(Booking booking) {
+        Room r = hotel.getRoomById(booking.getRoomId());
+        if (r != null) add(booking, r.getCategory().ordinal(), -1);
+    }
+
+    /**
+     * Rebuild everything from the bookings, splitting the work across the
+     * common fork/join pool; each split tallies into arrays sized to the nights it
+     * has seen. Events are
+     * delivered in order, so none that this snapshot covers can arrive later.
+     */
+    @Override
+    public synchronized void bookingsReloaded(List<Booking> all) {
+        List<Room> roomList = hotel.getAllRooms();
+        Arrays.fill(rooms, 0);
+        for (Room r : roomList) rooms[r.getCategory().ordinal()]++;
+        Map<String, Integer> categoryOf = new HashMap<>();
+        for (Room r : roomList) categoryOf.put(r.getId(), r.getCategory().ordinal());
+        int lo = firstDay(), hi = endDay();
+        Tally tally = all.parallelStream().collect(
+                () -> new Tally(lo, hi),
+                (t, b) -> {
+                    Integer c = categoryOf.get(b.getRoomId());
+                    if (c != null) t.add(b, c);
+                },
+                Tally::merge);
+        int from = tally.length() == 0 ? (int) LocalDate.now().toEpochDay() : tally.base;
+        int to = from + tally.length();
+        dayBase = from;
+        sold = tally.sold;
+        revenue = tally.revenue;
+        monthBase = monthIndex(YearMonth.from(LocalDate.ofEpochDay(from)));
+        int months = monthIndex(YearMonth.from(LocalDate.ofEpochDay(Math.max(from, to - 1)))) - monthBase + 1;
+        monthSold = new long[CATEGORIES.length][months];
+        monthRevenue = new long[CATEGORIES.length][months];
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            int m = 0, next = (int) LocalDate.ofEpochDay(from).withDayOfMonth(1).plusMonths(1).toEpochDay();
+            for (int d = from; d < to; d++) {
+                if (d == next) { m++; next = (int) LocalDate.ofEpochDay(d).plusMonths(1).toEpochDay(); }
+                monthSold[c][m] += sold[c][d - from];
+                monthRevenue[c][m] += revenue[c][d - from];
+            }
+        }
+    }
+
+    /**
+     * Recount rooms per category. Called when rooms are added or replaced.
+     */
+    synchronized void roomsChanged() {
+        Arrays.fill(rooms, 0);
+        for (Room r : hotel.getAllRooms()) rooms[r.getCategory().ordinal()]++;
+    }
+
+    private void add(Booking b, int c, int sign) {
+        int in = b.checkInDay(), out = b.checkOutDay();
+        // never drop below days already tallied, so a cancellation undoes what its creation added
+        int lo = sold[0].length == 0 ? firstDay() : Math.min(firstDay(), dayBase), hi = endDay();
+        int f = Math.max(in, lo), t = Math.min(out, hi);
+        if (t <= f) return;
+        ensureDays(f, t, lo, hi);
+        LocalDate first = LocalDate.ofEpochDay(f);
+        ensureMonths(monthIndex(YearMonth.from(first)), monthIndex(YearMonth.from(LocalDate.ofEpochDay(t - 1))));
+        long total = Math.round(b.getAmount() * 100);
+        int nights = out - in;
+        long perNight = total / nights, extra = total % nights;
+        int m = monthIndex(YearMonth.from(first)) - monthBase;
+        int next = (int) first.withDayOfMonth(1).plusMonths(1).toEpochDay();
+        for (int d = f; d < t; d++) {
+            if (d == next) { m++; next = (int) LocalDate.ofEpochDay(d).plusMonths(1).toEpochDay(); }
+            long r = perNight + (d - in < extra ? 1 : 0);
+            sold[c][d - dayBase] += sign;
+            revenue[c][d - dayBase] += sign * r;
+            monthSold[c][m] += sign;
+            monthRevenue[c][m] += sign * r;
+        }
+    }
+
+    private void ensureDays(int in, int out, int lo, int hi) {
+        int len = sold[0].length;
+        if (len > 0 && in >= dayBase && out <= dayBase + len) return;
+        int from = Math.max(lo, in - PADDING_DAYS), to = Math.min(hi, out + PADDING_DAYS);
+        if (len > 0) {
+            from = Math.min(from, dayBase);
+            to = Math.max(to, dayBase + len);
+        }
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            int[] s = new int[to - from];
+            long[] r = new long[to - from];
+            if (len > 0) {
+                System.arraycopy(sold[c], 0, s, dayBase - from, len);
+                System.arraycopy(revenue[c], 0, r, dayBase - from, len);
+            }
+            sold[c] = s;
+            revenue[c] = r;
+        }
+        dayBase = from;
+    }
+
+    private void ensureMonths(int first, int last) {
+        int len = monthSold[0].length;
+        if (len > 0 && first >= monthBase && last < monthBase + len) return;
+        int from = len == 0 ? first - 12 : Math.min(monthBase, first - 12);
+        int to = len == 0 ? last + 13 : Math.max(monthBase + len, last + 13);
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            long[] s = new long[to - from];
+            long[] r = new long[to - from];
+            if (len > 0) {
+                System.arraycopy(monthSold[c], 0, s, monthBase - from, len);
+                System.arraycopy(monthRevenue[c], 0, r, monthBase - from, len);
+            }
+            monthSold[c] = s;
+            monthRevenue[c] = r;
+        }
+        monthBase = from;
+    }
+
+    private long roomCount(Room.Category category) {
+        if (category != null) return rooms[category.ordinal()];
+        long n = 0;
+        for (int r : rooms) n += r;
+        return n;
+    }
+
+    /** First night tallied, as an epoch day. */
+    private static int firstDay() {
+        return (int) LocalDate.now().minusDays(HISTORY_DAYS).toEpochDay();
+    }
+
+    /** Epoch day after the last night tallied. */
+    private static int endDay() {
+        return (int) LocalDate.now().plusDays(Hotel.BOOKING_HORIZON_DAYS).toEpochDay();
+    }
+
+    private static int monthIndex(YearMonth m) {
+        return m.getYear() * 12 + m.getMonthValue() - 1;
+    }
+
+    /**
+     * Per-split accumulator for the parallel rebuild. Its arrays cover only the
+     * nights its bookings fall on, clipped to [lo, hi), and grow as it sees more.
+     */
+    private static final class Tally {
+        final int lo, hi;
+        int base;
+        int[][] sold = new int[CATEGORIES.length][0];
+        long[][] revenue = new long[CATEGORIES.length][0];
+
+        Tally(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        int length() {
+            return sold[0].length;
+        }
+
+        void add(Booking b, int c) {
+            int in = b.checkInDay(), out = b.checkOutDay();
+            int f = Math.max(in, lo), t = Math.min(out, hi);
+            if (t <= f) return;
+            cover(f, t);
+            long total = Math.round(b.getAmount() * 100);
+            long perNight = total / (out - in), extra = total % (out - in);
+            for (int d = f; d < t; d++) {
+                sold[c][d - base]++;
+                revenue[c][d - base] += perNight + (d - in < extra ? 1 : 0);
+            }
+        }
+
+        void merge(Tally other) {
+            int n = other.length();
+            if (n == 0) return;
+            cover(other.base, other.base + n);
+            int off = other.base - base;
+            for (int c = 0; c < CATEGORIES.length; c++) {
+                for (int i = 0; i < n; i++) {
+                    sold[c][off + i] += other.sold[c][i];
+                    revenue[c][off + i] += other.revenue[c][i];
+                }
+            }
+        }
+
+        /** Grow to cover [from, to), by half again each time so growth stays linear. */
+        private void cover(int from, int to) {
+            int len = length();
+            if (len > 0 && from >= base && to <= base + len) return;
+            int slack = Math.max(31, len / 2);
+            int newBase = len == 0 || from < base ? Math.max(lo, from - slack) : base;
+            int end = len == 0 || to > base + len ? Math.min(hi, to + slack) : base + len;
+            for (int c = 0; c < CATEGORIES.length; c++) {
+                int[] s = new int[end - newBase];
+                long[] r = new long[end - newBase];
+                if (len > 0) {
+                    System.arraycopy(sold[c], 0, s, base - newBase, len);
+                    System.arraycopy(revenue[c], 0, r, base - newBase, len);
+                }
+                sold[c] = s;
+                revenue[c] = r;
+            }
+            base = newBase;
+        }
+    }
+}
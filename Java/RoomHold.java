@@ -0,0 +1,64 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A temporary claim on a room for a date range. A hold blocks the room like a
+ * booking does, but lives in memory only and lapses at {@link #getExpiresAt()}
+ * unless it is confirmed into a {@link Booking} first. While a payment for it is in
+ * flight (see {@link Hotel#claimHoldForPayment}) it does not lapse, up to the end of
+ * the claim, so a charged hold can always be confirmed.
+ */
+public class RoomHold {
+
+    private final String holdId;
+    private final String roomId;
+    private final String guestName;
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+    private final double amount; // quoted when the hold was placed
+    private final Instant expiresAt;
+    private volatile Instant claimedUntil; // a payment is in flight until then, null if none; written under the room lock
+
+    RoomHold(String roomId, String guestName, LocalDate checkIn, LocalDate checkOut, double amount, Instant expiresAt) {
+        this.holdId = UUID.randomUUID().toString();
+        this.roomId = roomId;
+        this.guestName = guestName;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.amount = amount;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getHoldId() { return holdId; }
+    public String getRoomId() { return roomId; }
+    public String getGuestName() { return guestName; }
+    public LocalDate getCheckIn() { return checkIn; }
+    public LocalDate getCheckOut() { return checkOut; }
+    /** Price the booking will have once the hold is confirmed. */
+    public double getAmount() { return amount; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public boolean isExpired() { return !Instant.now().isBefore(expiresAt) && !isPaymentInFlight(); }
+
+    public boolean isPaymentInFlight() {
+        Instant c = claimedUntil;
+        return c != null && Instant.now().isBefore(c);
+    }
+
+    Instant getClaimedUntil() { return claimedUntil; }
+
+    boolean claimPayment(Instant until) {
+        if (isPaymentInFlight()) return false;
+        claimedUntil = until;
+        return true;
+    }
+
+    void releasePayment() { claimedUntil = null; }
+
+    @Override
+    public String toString() {
+        return String.format("%s | Room:%s | %s -> %s | %s | ₹%.2f | expires %s", holdId, roomId, checkIn, checkOut, guestName, amount, expiresAt);
+    }
+}
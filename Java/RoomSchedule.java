@@ -0,0 +1,105 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-room index: the bookings of one room sorted by check-in date, plus an
+ * {@link OccupancyBitmap} of the nights covered by bookings and active holds
+ * for availability checks.
+ *
+ * The array is copy-on-write: readers use the current snapshot without locking,
+ * writers synchronize on the schedule, which doubles as the room's booking lock.
+ */
+class RoomSchedule {
+
+    private static final Booking[] EMPTY = new Booking[0];
+
+    private volatile Booking[] stays = EMPTY; // sorted by checkIn
+    private final OccupancyBitmap occupancy = new OccupancyBitmap();
+
+    /**
+     * True if no stay overlaps [checkIn, checkOut)
+     */
+    boolean isFree(LocalDate checkIn, LocalDate checkOut) {
+        return isFree(checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    /**
+     * Same as {@link #isFree(LocalDate, LocalDate)} with epoch days.
+     */
+    boolean isFree(long inDay, long outDay) {
+        return occupancy.isClear(inDay, outDay);
+    }
+
+    /**
+     * Number of unoccupied nights in epoch days [from, to).
+     */
+    int freeNights(long from, long to) {
+        return (int) Math.max(0, to - from) - occupancy.countSet(from, to);
+    }
+
+    /**
+     * True if epoch days [from, to) contain a stay of {@code nights} consecutive free nights.
+     */
+    boolean hasFreeWindow(long from, long to, int nights) {
+        return occupancy.hasClearRun(from, to, nights);
+    }
+
+    synchronized void add(Booking b) {
+        Booking[] a = stays;
+        int at = lastStartingBefore(a, b.checkInDay() + 1) + 1;
+        Booking[] copy = new Booking[a.length + 1];
+        System.arraycopy(a, 0, copy, 0, at);
+        copy[at] = b;
+        System.arraycopy(a, at, copy, at + 1, a.length - at);
+        stays = copy;
+        occupancy.set(b.checkInDay(), b.checkOutDay());
+    }
+
+    synchronized void remove(Booking b) {
+        Booking[] a = stays;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b) continue;
+            Booking[] copy = new Booking[a.length - 1];
+            System.arraycopy(a, 0, copy, 0, i);
+            System.arraycopy(a, i + 1, copy, i, a.length - i - 1);
+            stays = copy;
+            occupancy.clear(b.checkInDay(), b.checkOutDay());
+            return;
+        }
+    }
+
+    /**
+     * Block the hold's nights. Caller has checked they are free.
+     */
+    synchronized void addHold(RoomHold h) {
+        occupancy.set(h.getCheckIn().toEpochDay(), h.getCheckOut().toEpochDay());
+    }
+
+    synchronized void removeHold(RoomHold h) {
+        occupancy.clear(h.getCheckIn().toEpochDay(), h.getCheckOut().toEpochDay());
+    }
+
+    List<Booking> getStays() {
+        return Arrays.asList(stays.clone());
+    }
+
+    int size() {
+        return stays.length;
+    }
+
+    /**
+     * Index of the last stay whose check-in is before the given epoch day, or -1.
+     */
+    private static int lastStartingBefore(Booking[] a, int day) {
+        int lo = 0, hi = a.length - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid].checkInDay() < day) { found = mid; lo = mid + 1; }
+            else hi = mid - 1;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,179 @@
+package model;
+
+import util.Metrics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of {@link Hotel#searchAvailable} results, keyed by date range
+ * and category.
+ *
+ * The hotel invalidates entries whenever a booking, cancellation or hold changes a
+ * room's occupancy; only entries whose range overlaps the changed nights and whose
+ * category matches the room (or is "any") are dropped. A result computed while such
+ * a change was in flight is not cached: callers take {@link #generation()} before
+ * computing and {@link #put} refuses the result if anything was invalidated since.
+ * Entries are also indexed by category and check-in day, so an invalidation only
+ * visits the entries that start within the longest cached range of the change.
+ */
+public class SearchCache {
+
+    private final int capacity;
+    private final LinkedHashMap<Key, List<Room>> entries; // access order, guarded by this
+    // keys per category slot (0 = any, else ordinal + 1) by check-in day, guarded by this
+    private final List<TreeMap<Long, List<Key>>> byCheckIn = new ArrayList<>();
+    private long maxNights; // longest range cached since the last clear, guarded by this
+    private volatile long generation; // bumped by every invalidation, written under this
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    SearchCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, List<Room>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Room>> eldest) {
+                if (size() <= SearchCache.this.capacity) return false;
+                unindex(eldest.getKey());
+                evictions.increment();
+                return true;
+            }
+        };
+        for (int i = 0; i <= Room.Category.values().length; i++) byCheckIn.add(new TreeMap<>());
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Cached rooms for the query, or null on a miss.
+     */
+    List<Room> get(long inDay, long outDay, Room.Category category) {
+        if (capacity <= 0) return null;
+        List<Room> rooms;
+        synchronized (this) {
+            rooms = entries.get(new Key(inDay, outDay, category));
+        }
+        if (rooms != null) {
+            hits.increment();
+            Metrics.SEARCH_CACHE_HIT.increment();
+        } else {
+            misses.increment();
+            Metrics.SEARCH_CACHE_MISS.increment();
+        }
+        return rooms;
+    }
+
+    /**
+     * Cache an immutable result computed after {@code generation} was read.
+     */
+    synchronized void put(long inDay, long outDay, Room.Category category, List<Room> rooms, long generation) {
+        if (capacity <= 0 || generation != this.generation) return;
+        Key k = new Key(inDay, outDay, category);
+        if (entries.put(k, rooms) == null) index(k);
+    }
+
+    /**
+     * Drop entries that could include a room of the category over nights [inDay, outDay).
+     */
+    synchronized void invalidate(Room.Category category, long inDay, long outDay) {
+        generation++;
+        invalidate(byCheckIn.get(slot(null)), inDay, outDay);
+        invalidate(byCheckIn.get(slot(category)), inDay, outDay);
+    }
+
+    private void invalidate(TreeMap<Long, List<Key>> index, long inDay, long outDay) {
+        // a cached range that ends after inDay starts less than maxNights before it
+        Iterator<List<Key>> days = index.subMap(inDay - maxNights, false, outDay, false).values().iterator();
+        while (days.hasNext()) {
+            List<Key> keys = days.next();
+            for (Iterator<Key> it = keys.iterator(); it.hasNext(); ) {
+                Key k = it.next();
+                if (k.out <= inDay) continue;
+                it.remove();
+                entries.remove(k);
+                invalidations.increment();
+            }
+            if (keys.isEmpty()) days.remove();
+        }
+    }
+
+    synchronized void clear() {
+        generation++;
+        invalidations.add(entries.size());
+        entries.clear();
+        for (TreeMap<Long, List<Key>> index : byCheckIn) index.clear();
+        maxNights = 0;
+    }
+
+    private void index(Key k) {
+        byCheckIn.get(slot(k.category)).computeIfAbsent(k.in, d -> new ArrayList<>(2)).add(k);
+        maxNights = Math.max(maxNights, k.out - k.in);
+    }
+
+    private void unindex(Key k) {
+        TreeMap<Long, List<Key>> index = byCheckIn.get(slot(k.category));
+        List<Key> keys = index.get(k.in);
+        keys.remove(k);
+        if (keys.isEmpty()) index.remove(k.in);
+    }
+
+    private static int slot(Room.Category category) {
+        return category == null ? 0 : category.ordinal() + 1;
+    }
+
+    // --- Statistics ---
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getInvalidationCount() { return invalidations.sum(); }
+    public int getCapacity() { return capacity; }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public double getHitRate() {
+        long h = getHitCount(), total = h + getMissCount();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("search cache: %d/%d entries, %d hits, %d misses (%.1f%%), %d evicted, %d invalidated",
+                size(), capacity, getHitCount(), getMissCount(), getHitRate() * 100, getEvictionCount(), getInvalidationCount());
+    }
+
+    private static final class Key {
+        final long in, out;
+        final Room.Category category; // null = any
+
+        Key(long in, long out, Room.Category category) {
+            this.in = in;
+            this.out = out;
+            this.category = category;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return in == k.in && out == k.out && category == k.category;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(in * 31 + out) * 31 + (category == null ? 0 : category.ordinal() + 1);
+        }
+    }
+}
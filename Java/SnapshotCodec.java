@@ -0,0 +1,259 @@
+package model;
+
+import util.Metrics;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Versioned binary snapshot format for rooms and bookings.
+ *
+ * Layout: magic, version, a table of distinct strings, then fixed-width rows that
+ * refer to strings by index. Dates are stored as epoch-day ints and money as
+ * fixed-point paise (hundredths of a rupee) in a long. Files are read through a
+ * memory-mapped buffer, and every row shares the decoded string table, so room ids
+ * and repeat guest names are only held once. Bookings files end with an
+ * {@link IdFilter} of their ids; files written before it was added have none.
+ */
+final class SnapshotCodec {
+
+    private static final int ROOMS_MAGIC = 0x48524D53;    // "HRMS"
+    private static final int BOOKINGS_MAGIC = 0x48424B53; // "HBKS"
+    private static final int ID_FILTER_MAGIC = 0x48424944; // "HBID", after the booking rows
+    private static final short VERSION = 1;
+    private static final int BOOKING_ROW_BYTES = 8 + 8 + 4 + 4 + 4 + 4 + 8 + 1;
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private SnapshotCodec() {}
+
+    // --- Rooms ---
+
+    static void writeRooms(File file, Collection<Room> rooms) throws IOException {
+        StringTable strings = new StringTable();
+        for (Room r : rooms) {
+            strings.add(r.getId());
+            strings.add(r.getCategory().name());
+            strings.add(r.getDescription());
+        }
+        write(file, ROOMS_MAGIC, strings, out -> {
+            out.writeInt(rooms.size());
+            for (Room r : rooms) {
+                out.writeInt(strings.indexOf(r.getId()));
+                out.writeInt(strings.indexOf(r.getCategory().name()));
+                out.writeLong(toPaise(r.getPricePerNight()));
+                out.writeInt(strings.indexOf(r.getDescription()));
+            }
+        });
+    }
+
+    static Map<String, Room> readRooms(File file) throws IOException {
+        MappedByteBuffer buf = map(file);
+        String[] strings = readHeader(buf, ROOMS_MAGIC, file);
+        int count = buf.getInt();
+        Map<String, Room> rooms = new LinkedHashMap<>(capacity(count));
+        for (int i = 0; i < count; i++) {
+            String id = strings[buf.getInt()];
+            Room.Category category = Room.Category.valueOf(strings[buf.getInt()]);
+            double price = fromPaise(buf.getLong());
+            String description = strings[buf.getInt()];
+            rooms.put(id, new Room(id, category, price, description));
+        }
+        return rooms;
+    }
+
+    // --- Bookings ---
+
+    /**
+     * Write the bookings and, after them, a filter of their ids; returns the filter.
+     */
+    static IdFilter writeBookings(File file, Collection<Booking> bookings) throws IOException {
+        StringTable strings = new StringTable();
+        IdFilter ids = new IdFilter(bookings.size());
+        for (Booking b : bookings) {
+            strings.add(b.getRoomId());
+            strings.add(b.getGuestName());
+            ids.add(b.idHi(), b.idLo());
+        }
+        write(file, BOOKINGS_MAGIC, strings, out -> {
+            out.writeInt(bookings.size());
+            for (Booking b : bookings) {
+                out.writeLong(b.idHi());
+                out.writeLong(b.idLo());
+                out.writeInt(strings.indexOf(b.getRoomId()));
+                out.writeInt(strings.indexOf(b.getGuestName()));
+                out.writeInt(b.checkInDay());
+                out.writeInt(b.checkOutDay());
+                out.writeLong(toPaise(b.getAmount()));
+                out.writeBoolean(b.isPaid());
+            }
+            out.writeInt(ID_FILTER_MAGIC);
+            out.writeInt(ids.words().length);
+            for (long w : ids.words()) out.writeLong(w);
+        });
+        return ids;
+    }
+
+    static List<Booking> readBookings(File file) throws IOException {
+        MappedByteBuffer buf = map(file);
+        String[] strings = readHeader(buf, BOOKINGS_MAGIC, file);
+        int count = buf.getInt();
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long hi = buf.getLong(), lo = buf.getLong();
+            String roomId = strings[buf.getInt()];
+            String guest = strings[buf.getInt()];
+            int in = buf.getInt(), out = buf.getInt();
+            double amount = fromPaise(buf.getLong());
+            boolean paid = buf.get() != 0;
+            bookings.add(new Booking(hi, lo, roomId, guest, in, out, amount, paid));
+        }
+        return bookings;
+    }
+
+    /**
+     * True if the bookings snapshot has a row with the id. Reads only the ids.
+     */
+    static boolean containsBooking(File file, long idHi, long idLo) throws IOException {
+        MappedByteBuffer buf = map(file);
+        skipHeader(buf, BOOKINGS_MAGIC, file);
+        int count = buf.getInt();
+        for (int i = 0, pos = buf.position(); i < count; i++, pos += BOOKING_ROW_BYTES) {
+            if (buf.getLong(pos) == idHi && buf.getLong(pos + 8) == idLo) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The filter of the ids in the bookings snapshot, built from its rows if the file
+     * predates filters.
+     */
+    static IdFilter readIdFilter(File file) throws IOException {
+        MappedByteBuffer buf = map(file);
+        skipHeader(buf, BOOKINGS_MAGIC, file);
+        int count = buf.getInt();
+        int rows = buf.position();
+        buf.position(rows + count * BOOKING_ROW_BYTES);
+        if (buf.remaining() >= 8 && buf.getInt() == ID_FILTER_MAGIC) {
+            long[] words = new long[buf.getInt()];
+            buf.asLongBuffer().get(words);
+            return new IdFilter(words);
+        }
+        IdFilter ids = new IdFilter(count);
+        for (int i = 0, pos = rows; i < count; i++, pos += BOOKING_ROW_BYTES) ids.add(buf.getLong(pos), buf.getLong(pos + 8));
+        return ids;
+    }
+
+    // --- Helpers ---
+
+    private interface Rows { void write(DataOutputStream out) throws IOException; }
+
+    /**
+     * Write to a temp file, fsync, then atomically replace the target so a crash
+     * mid-write never leaves a half-written snapshot behind. The directory is synced
+     * too, so the rename is durable before callers drop what the snapshot replaces
+     * (e.g. truncate the journal).
+     */
+    private static void write(File file, int magic, StringTable strings, Rows rows) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(magic);
+            out.writeShort(VERSION);
+            out.writeInt(strings.size());
+            for (String s : strings.values()) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            rows.write(out);
+            out.flush();
+            fos.getFD().sync();
+            Metrics.SNAPSHOT_BYTES.add(out.size());
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * fsync a directory so that renames in it survive a crash. Skipped on Windows,
+     * where a directory cannot be opened for this.
+     */
+    static void syncDirectory(File dir) throws IOException {
+        if (WINDOWS) return;
+        try (FileChannel ch = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            ch.force(true);
+        }
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    private static String[] readHeader(MappedByteBuffer buf, int magic, File file) throws IOException {
+        if (buf.remaining() < 6 || buf.getInt() != magic) throw new IOException("Not a snapshot file: " + file);
+        short version = buf.getShort();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        String[] strings = new String[buf.getInt()];
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int len = buf.getInt();
+            if (scratch.length < len) scratch = new byte[len];
+            buf.get(scratch, 0, len);
+            strings[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * Check the header like {@link #readHeader} but step over the strings without decoding them.
+     */
+    private static void skipHeader(MappedByteBuffer buf, int magic, File file) throws IOException {
+        if (buf.remaining() < 6 || buf.getInt() != magic) throw new IOException("Not a snapshot file: " + file);
+        short version = buf.getShort();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        for (int i = buf.getInt(); i > 0; i--) buf.position(buf.position() + 4 + buf.getInt(buf.position()));
+    }
+
+    private static long toPaise(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static double fromPaise(long paise) {
+        return paise / 100.0;
+    }
+
+    private static int capacity(int count) {
+        return (int) Math.min(Integer.MAX_VALUE, count * 4L / 3 + 1);
+    }
+
+    /**
+     * Insertion-ordered table of distinct strings.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> index = new LinkedHashMap<>();
+
+        void add(String s) {
+            index.putIfAbsent(s == null ? "" : s, index.size());
+        }
+
+        int indexOf(String s) {
+            return index.get(s == null ? "" : s);
+        }
+
+        int size() {
+            return index.size();
+        }
+
+        Collection<String> values() {
+            return index.keySet();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package bench;
+
+import model.Booking;
+import model.Hotel;
+import model.Room;
+import util.PaymentSimulator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Seeded stress and crash-recovery checks for {@link Hotel}.
+ * <pre>
+ *   java -cp out bench.StressHarness [seed] [opsPerThread] [threadCounts, e.g. 1,2,4,8] [crashRounds]
+ * </pre>
+ * Stress: for each thread count a fresh property takes creates, cancels and payments
+ * from every thread, each drawing its operations from {@code Random(seed + worker)}
+ * and its simulated payment failures from {@code Random(~(seed + worker))}. The same
+ * seed replays the same per-thread workload, payment failures included (and, on one
+ * thread, the same outcome). Afterwards, and again after a reload from the journal and from a
+ * snapshot, the hotel must match what the workers were told: every acknowledged
+ * booking present with its payment state, every acknowledged cancel gone, no two
+ * stays of a room overlapping and every amount equal to rate x nights (no pricing
+ * rules are configured).
+ *
+ * Crash: a child JVM runs the workload while another thread checkpoints in a loop,
+ * and halts after a seeded number of operations, usually mid-checkpoint. The parent
+ * then tears the journal tail and leaves a half-written snapshot {@code .tmp} behind,
+ * loads the property and checks that exactly the acknowledged changes survived.
+ *
+ * Exits with status 1 if any check fails.
+ */
+public class StressHarness {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+    private static final int WINDOW_DAYS = 90;
+    private static final int ROOMS = 20; // 5 sample rooms plus these
+    private static final String CARD = "4111111111111111";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--crash-child")) {
+            crashChild(new File(args[1]), Long.parseLong(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42L;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        String threadCounts = args.length > 2 ? args[2] : "1,2,4,8";
+        int crashRounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        System.out.printf("seed=%d opsPerThread=%d%n%n", seed, ops);
+        System.out.printf("%-10s %8s %12s %10s %10s %10s%n", "run", "threads", "ops/s", "booked", "cancelled", "paid");
+        List<String> errors = new ArrayList<>();
+        for (String t : threadCounts.split(",")) stress(seed, ops, Integer.parseInt(t.trim()), errors);
+        for (int round = 0; round < crashRounds; round++) crash(seed + round, ops, errors);
+
+        System.out.println();
+        if (errors.isEmpty()) {
+            System.out.println("all checks passed");
+        } else {
+            for (String e : errors.subList(0, Math.min(errors.size(), 50))) System.out.println("FAIL " + e);
+            System.out.printf("%d check(s) failed (seed %d)%n", errors.size(), seed);
+            System.exit(1);
+        }
+    }
+
+    // --- Stress ---
+
+    private static void stress(long seed, int ops, int threads, List<String> errors) throws Exception {
+        File dir = Files.createTempDirectory("hotel-stress").toFile();
+        Hotel hotel = newProperty(dir);
+        List<Room> rooms = hotel.getAllRooms();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Ledger>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long workerSeed = seed + t;
+            futures.add(pool.submit(() -> {
+                Ledger ledger = new Ledger();
+                start.await();
+                run(hotel, rooms, new Random(workerSeed), new Random(~workerSeed), ops, ledger, null);
+                return ledger;
+            }));
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        Ledger all = new Ledger();
+        for (Future<Ledger> f : futures) all.merge(f.get());
+        long elapsed = System.nanoTime() - t0;
+        pool.shutdown();
+
+        long total = (long) ops * threads;
+        System.out.printf("%-10s %8d %12.0f %10d %10d %10d%n", "stress", threads, total * 1e9 / elapsed,
+                all.booked, all.cancelled.size(), all.paid);
+        errors.addAll(all.errors);
+
+        String run = "stress/" + threads + " ";
+        verify(run + "live", hotel, all, errors);
+        hotel.close();
+        Hotel replayed = new Hotel(dir);
+        replayed.load();
+        verify(run + "journal replay", replayed, all, errors);
+        replayed.saveBookings();
+        replayed.close();
+        Hotel reloaded = new Hotel(dir);
+        reloaded.load();
+        verify(run + "snapshot reload", reloaded, all, errors);
+        reloaded.close();
+        HotelBenchmark.delete(dir);
+    }
+
+    /**
+     * Perform seeded operations, recording what the hotel acknowledged; simulated
+     * payment failures come from {@code payments}. When {@code out} is given each
+     * acknowledgement is also printed, for the crash parent to read.
+     */
+    private static void run(Hotel hotel, List<Room> rooms, Random rnd, Random payments, int ops, Ledger ledger, PrintStream out) {
+        List<String> mine = new ArrayList<>(); // this worker's live bookings
+        for (int i = 0; i < ops; i++) {
+            int op = rnd.nextInt(100);
+            if (op < 55 || mine.isEmpty()) {
+                Room r = rooms.get(rnd.nextInt(rooms.size()));
+                LocalDate in = BASE.plusDays(rnd.nextInt(WINDOW_DAYS));
+                Booking b = hotel.createBooking(r.getId(), "stress", in, in.plusDays(1 + rnd.nextInt(5)), false);
+                if (b == null) continue;
+                mine.add(b.getBookingId());
+                ledger.live.put(b.getBookingId(), false);
+                ledger.booked++;
+                if (out != null) ack(out, "C", b.getBookingId());
+            } else if (op < 75) {
+                String id = mine.remove(rnd.nextInt(mine.size()));
+                if (!hotel.cancelBooking(id)) {
+                    ledger.errors.add("cancel of live booking " + id + " failed");
+                    continue;
+                }
+                ledger.live.remove(id);
+                ledger.cancelled.add(id);
+                if (out != null) ack(out, "X", id);
+            } else {
+                String id = mine.get(rnd.nextInt(mine.size()));
+                if (ledger.live.get(id)) continue;
+                Booking b = hotel.getBookingById(id);
+                if (!PaymentSimulator.process("Stress", CARD, "12/30", "123", b.getAmount(), payments).success) continue;
+                if (!hotel.updatePayment(id, true)) {
+                    ledger.errors.add("payment for live booking " + id + " failed");
+                    continue;
+                }
+                ledger.live.put(id, true);
+                ledger.paid++;
+                if (out != null) ack(out, "P", id);
+            }
+        }
+    }
+
+    private static void ack(PrintStream out, String kind, String id) {
+        out.println(kind + " " + id);
+        out.flush();
+    }
+
+    // --- Crash recovery ---
+
+    private static void crash(long seed, int ops, List<String> errors) throws Exception {
+        File dir = Files.createTempDirectory("hotel-crash").toFile();
+        int haltAfter = 1 + new Random(seed).nextInt(ops);
+        String java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), StressHarness.class.getName(),
+                "--crash-child", dir.getPath(), Long.toString(seed), Integer.toString(ops), Integer.toString(haltAfter))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        Ledger acked = new Ledger();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String id = line.substring(2);
+                switch (line.charAt(0)) {
+                    case 'C': acked.live.put(id, false); acked.booked++; break;
+                    case 'X': acked.live.remove(id); acked.cancelled.add(id); break;
+                    case 'P': acked.live.put(id, true); acked.paid++; break;
+                    default: break;
+                }
+            }
+        }
+        child.waitFor();
+
+        // what a crash mid-append or mid-snapshot leaves behind
+        File journal = new File(dir, "bookings.journal");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(journal, true))) {
+            out.writeInt(48);
+            out.writeInt(0x5eed);
+            out.write(new byte[11]);
+        }
+        File segments = new File(dir, "bookings");
+        File[] snaps = segments.listFiles((d, n) -> n.endsWith(".snap"));
+        File stray = snaps != null && snaps.length > 0 ? new File(snaps[0].getPath() + ".tmp") : new File(segments, "2030-01.snap.tmp");
+        segments.mkdirs();
+        try (FileOutputStream out = new FileOutputStream(stray)) {
+            out.write(new byte[]{0x48, 0x42, 0x4b}); // a few bytes of a snapshot header
+        }
+
+        Hotel recovered = new Hotel(dir);
+        recovered.load();
+        String run = "crash/" + seed + " ";
+        verify(run + "recovery", recovered, acked, errors);
+
+        // the torn tail must be gone so new records are replayed too
+        Booking after = null;
+        for (int d = 0; after == null && d < 10 * WINDOW_DAYS; d++) {
+            after = recovered.createBooking("R001", "after crash", BASE.plusDays(WINDOW_DAYS + d), BASE.plusDays(WINDOW_DAYS + d + 1), false);
+        }
+        recovered.close();
+        if (after != null) acked.live.put(after.getBookingId(), false);
+        Hotel again = new Hotel(dir);
+        again.load();
+        verify(run + "append after recovery", again, acked, errors);
+        again.close();
+
+        System.out.printf("%-10s %8d %12s %10d %10d %10d   (halted after op %d, exit %d)%n", "crash", 1, "-",
+                acked.booked, acked.cancelled.size(), acked.paid, haltAfter, child.exitValue());
+        HotelBenchmark.delete(dir);
+    }
+
+    /**
+     * Child side of {@link #crash}: run the workload with a checkpoint loop alongside
+     * and halt without shutdown hooks after {@code haltAfter} operations.
+     */
+    private static void crashChild(File dir, long seed, int ops, int haltAfter) {
+        Hotel hotel = newProperty(dir);
+        Thread checkpoints = new Thread(() -> {
+            while (true) hotel.saveBookings();
+        }, "checkpoints");
+        checkpoints.setDaemon(true);
+        checkpoints.start();
+        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false);
+        run(hotel, hotel.getAllRooms(), new Random(seed), new Random(~seed), haltAfter, new Ledger(), out);
+        Runtime.getRuntime().halt(0);
+    }
+
+    // --- Checks ---
+
+    private static Hotel newProperty(File dir) {
+        Hotel hotel = new Hotel(dir);
+        hotel.load(); // an empty directory gets the sample rooms
+        Room.Category[] categories = Room.Category.values();
+        for (int i = hotel.getAllRooms().size(); i < ROOMS; i++) {
+            hotel.addRoom(new Room(String.format("S%03d", i), categories[i % categories.length], 2000 + 150 * i, "Stress room " + i));
+        }
+        hotel.saveRooms();
+        return hotel;
+    }
+
+    /**
+     * Compare the hotel with the acknowledged changes and check the booking invariants.
+     */
+    private static void verify(String run, Hotel hotel, Ledger expected, List<String> errors) {
+        List<Booking> all = hotel.getAllBookings();
+        if (all.size() != expected.live.size()) {
+            errors.add(run + ": " + all.size() + " bookings, expected " + expected.live.size());
+        }
+        for (Map.Entry<String, Boolean> e : expected.live.entrySet()) {
+            Booking b = hotel.getBookingById(e.getKey());
+            if (b == null) errors.add(run + ": acknowledged booking " + e.getKey() + " lost");
+            else if (b.isPaid() != e.getValue()) errors.add(run + ": booking " + e.getKey() + " paid=" + b.isPaid());
+        }
+        for (String id : expected.cancelled) {
+            if (hotel.getBookingById(id) != null) errors.add(run + ": cancelled booking " + id + " is back");
+        }
+
+        Map<String, List<Booking>> byRoom = new HashMap<>();
+        for (Booking b : all) byRoom.computeIfAbsent(b.getRoomId(), k -> new ArrayList<>()).add(b);
+        for (Map.Entry<String, List<Booking>> e : byRoom.entrySet()) {
+            List<Booking> stays = e.getValue();
+            stays.sort(Comparator.comparing(Booking::getCheckIn));
+            for (int i = 1; i < stays.size(); i++) {
+                if (stays.get(i).getCheckIn().isBefore(stays.get(i - 1).getCheckOut())) {
+                    errors.add(run + ": room " + e.getKey() + " double-booked: " + stays.get(i - 1).getBookingId() + " and " + stays.get(i).getBookingId());
+                }
+            }
+            Room room = hotel.getRoomById(e.getKey());
+            for (Booking b : stays) {
+                double want = room == null ? Double.NaN : room.getPricePerNight() * ChronoUnit.DAYS.between(b.getCheckIn(), b.getCheckOut());
+                if (!(Math.abs(b.getAmount() - want) < 0.005)) {
+                    errors.add(run + ": booking " + b.getBookingId() + " amount " + b.getAmount() + ", expected " + want);
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes acknowledged to one worker, or to all of them once merged.
+     */
+    private static final class Ledger {
+        final Map<String, Boolean> live = new HashMap<>(); // bookingId -> paid
+        final Set<String> cancelled = new HashSet<>();
+        final List<String> errors = new ArrayList<>();
+        long booked;
+        long paid;
+
+        void merge(Ledger other) {
+            live.putAll(other.live);
+            cancelled.addAll(other.cancelled);
+            errors.addAll(other.errors);
+            booked += other.booked;
+            paid += other.paid;
+        }
+    }
+}
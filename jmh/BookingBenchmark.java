@@ -0,0 +1,65 @@
+package bench;
+
+import model.Booking;
+import model.Hotel;
+import model.Room;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking under contention: four threads create (and half the time cancel) stays
+ * on a small hot set of rooms, so writers meet on the same room locks and the
+ * journal's group commit. Runs against a scratch copy of the generated property.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class BookingBenchmark {
+
+    @Param("1000")
+    int rooms;
+
+    @Param("100000")
+    int bookings;
+
+    @Param("16")
+    int hot; // rooms the writers share
+
+    private File scratch;
+    private Hotel hotel;
+    private List<Room> all;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        scratch = Files.createTempDirectory("hotel-jmh").toFile();
+        HotelBenchmark.copy(HotelBenchmark.fixture(rooms, bookings), scratch);
+        hotel = new Hotel(scratch);
+        hotel.load();
+        all = hotel.getAllRooms();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        hotel.close();
+        HotelBenchmark.delete(scratch);
+    }
+
+    @Benchmark
+    public void createBooking(Blackhole bh) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        LocalDate in = LocalDate.now().plusDays(r.nextInt(Hotel.BOOKING_HORIZON_DAYS - 3)); // within the booking horizon
+        Booking b = hotel.createBooking(all.get(r.nextInt(Math.min(hot, all.size()))).getId(), "bench", in, in.plusDays(1 + r.nextInt(3)), true);
+        bh.consume(b);
+        if (b != null && r.nextBoolean()) bh.consume(hotel.cancelBooking(b.getBookingId()));
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+import model.Hotel;
+import model.Room;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths over a generated property with its whole history loaded: cached and
+ * uncached searches and single-room availability checks. Run with more threads
+ * ({@code -t}) to see how reads scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SearchBenchmark {
+
+    private static final LocalDate EPOCH = LocalDate.of(2024, 1, 1);
+    private static final int HORIZON_DAYS = 3 * 365;
+
+    @Param("1000")
+    int rooms;
+
+    @Param("100000")
+    int bookings;
+
+    private Hotel hotel;
+    private List<Room> all;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        File fixture = HotelBenchmark.fixture(rooms, bookings);
+        hotel = new Hotel(fixture);
+        hotel.load();
+        hotel.loadAllHistory(); // queries span past months too
+        all = hotel.getAllRooms();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hotel.close();
+    }
+
+    @Benchmark
+    public List<Room> searchAvailable() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        LocalDate in = EPOCH.plusDays(r.nextInt(HORIZON_DAYS));
+        Room.Category c = r.nextInt(4) == 0 ? null : Room.Category.values()[r.nextInt(3)];
+        return hotel.searchAvailable(in, in.plusDays(1 + r.nextInt(7)), c);
+    }
+
+    @Benchmark
+    public boolean isRoomAvailable() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        LocalDate in = EPOCH.plusDays(r.nextInt(HORIZON_DAYS));
+        return hotel.isRoomAvailable(all.get(r.nextInt(all.size())).getId(), in, in.plusDays(1 + r.nextInt(7)));
+    }
+}
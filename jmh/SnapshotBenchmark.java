@@ -0,0 +1,91 @@
+package bench;
+
+import model.Hotel;
+import model.Room;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold {@link Hotel#load()} of the generated property, and a checkpoint
+ * ({@link Hotel#saveBookings()}) after a burst of bookings spread over the year
+ * ahead, so each save rewrites a dozen month segments and truncates the journal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SnapshotBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Property {
+        @Param("1000")
+        int rooms;
+
+        @Param("100000")
+        int bookings;
+
+        File fixture;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            fixture = HotelBenchmark.fixture(rooms, bookings);
+        }
+    }
+
+    /**
+     * A scratch copy that takes a burst of bookings before each save.
+     */
+    @State(Scope.Benchmark)
+    public static class Checkpoint {
+        @Param("200")
+        int burst;
+
+        private File scratch;
+        private Hotel hotel;
+        private List<Room> all;
+        private final Random rnd = new Random(42);
+
+        @Setup(Level.Trial)
+        public void setUp(Property p) throws IOException {
+            scratch = Files.createTempDirectory("hotel-jmh").toFile();
+            HotelBenchmark.copy(p.fixture, scratch);
+            hotel = new Hotel(scratch);
+            hotel.load();
+            all = hotel.getAllRooms();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            hotel.close();
+            HotelBenchmark.delete(scratch);
+        }
+
+        @Setup(Level.Invocation)
+        public void book() {
+            LocalDate today = LocalDate.now();
+            for (int i = 0; i < burst; i++) {
+                LocalDate in = today.plusDays(rnd.nextInt(365));
+                hotel.createBooking(all.get(rnd.nextInt(all.size())).getId(), "bench", in, in.plusDays(1 + rnd.nextInt(3)), true);
+            }
+        }
+    }
+
+    @Benchmark
+    public Hotel load(Property p) {
+        Hotel h = new Hotel(p.fixture);
+        h.load();
+        h.close();
+        return h;
+    }
+
+    @Benchmark
+    public void saveBookings(Checkpoint c) {
+        c.hotel.saveBookings();
+    }
+}